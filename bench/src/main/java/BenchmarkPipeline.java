@@ -0,0 +1,53 @@
+import snpinder.bench.Pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Implementation of the benchmarked pipeline steps, with the classes of SNPinder.
+ * It is in the default package so it can use those classes, see Pipeline.
+ */
+public class BenchmarkPipeline implements Pipeline {
+
+    private final SNPinder app = new SNPinder();
+    private final GenomeLoader loader = new GenomeLoader(1);
+    private VariantIndex index;
+
+    @Override
+    public int read_variant_summary(byte[] variantSummary) throws IOException {
+        app.read_variants(new ByteArrayInputStream(variantSummary));
+        index = app.getPathoSNPs();
+        return index.size();
+    }
+
+    @Override
+    public Object read_OpenHumanSNPFile(File file) throws IOException {
+        return loader.read_OpenHumanSNPFile(file);
+    }
+
+    @Override
+    public List<String[]> compare_OpenHumanSNPs(Object genome1, Object genome2) {
+        return app.compare_OpenHumanSNPs((Genome) genome1, (Genome) genome2);
+    }
+
+    @Override
+    public Object project(Object genome) {
+        return CarrierSet.project((Genome) genome, index);
+    }
+
+    @Override
+    public List<String[]> screen(Object carrierSet1, Object carrierSet2) {
+        return ((CarrierSet) carrierSet1).screen((CarrierSet) carrierSet2);
+    }
+
+    @Override
+    public long write_to_file(List<String[]> pathogenicSNPs, File file) throws IOException {
+        ResultSink sink = new ResultSink(file, ResultSink.format_for(file), 1 << 14);
+        try (sink) {
+            pathogenicSNPs.forEach(sink);
+        }
+        return sink.getWritten();
+    }
+}
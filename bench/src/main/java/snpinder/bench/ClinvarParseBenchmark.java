@@ -0,0 +1,35 @@
+package snpinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing the variant_summary file into the VariantIndex, from memory so the disk isn't measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClinvarParseBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int variants;
+
+    private byte[] variantSummary;
+    private Pipeline pipeline;
+
+    @Setup
+    public void setup() {
+        variantSummary = SyntheticData.variant_summary(variants, 42);
+        pipeline = Pipeline.create();
+    }
+
+    @Benchmark
+    public int read_variant_summaryFile() throws IOException {
+        return pipeline.read_variant_summary(variantSummary);
+    }
+}
@@ -0,0 +1,63 @@
+package snpinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing the genomes of two parents.
+ * compare_OpenHumanSNPs includes matching both genomes to the VariantIndex,
+ * screen only measures the inner loop on genomes that are already matched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompareBenchmark {
+
+    @Param({"1000000"})
+    public int variants;
+
+    @Param({"600000"})
+    public int snps;
+
+    private Pipeline pipeline;
+    private Object genome1;
+    private Object genome2;
+    private Object carrierSet1;
+    private Object carrierSet2;
+
+    @Setup
+    public void setup() throws IOException {
+        pipeline = Pipeline.create();
+        pipeline.read_variant_summary(SyntheticData.variant_summary(variants, 42));
+        File directory = Files.createTempDirectory("snpinder-bench").toFile();
+        File file1 = new File(directory, "user1_file1.23andme.txt");
+        File file2 = new File(directory, "user2_file2.23andme.txt");
+        SyntheticData.write_genome(file1, snps, 1);
+        SyntheticData.write_genome(file2, snps, 2);
+        genome1 = pipeline.read_OpenHumanSNPFile(file1);
+        genome2 = pipeline.read_OpenHumanSNPFile(file2);
+        carrierSet1 = pipeline.project(genome1);
+        carrierSet2 = pipeline.project(genome2);
+        file1.delete();
+        file2.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public List<String[]> compare_OpenHumanSNPs() {
+        return pipeline.compare_OpenHumanSNPs(genome1, genome2);
+    }
+
+    @Benchmark
+    public List<String[]> screen() {
+        return pipeline.screen(carrierSet1, carrierSet2);
+    }
+}
@@ -0,0 +1,46 @@
+package snpinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing one 23andMe file into a Genome. The file is read from the page cache after the first run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenomeParseBenchmark {
+
+    @Param({"600000"})
+    public int snps;
+
+    private File directory;
+    private File file;
+    private Pipeline pipeline;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("snpinder-bench").toFile();
+        file = new File(directory, "user1_file1.23andme.txt");
+        SyntheticData.write_genome(file, snps, 1);
+        pipeline = Pipeline.create();
+    }
+
+    @TearDown
+    public void tear_down() {
+        file.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public Object read_OpenHumanSNPFile() throws IOException {
+        return pipeline.read_OpenHumanSNPFile(file);
+    }
+}
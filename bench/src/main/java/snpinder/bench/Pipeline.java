@@ -0,0 +1,81 @@
+package snpinder.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The steps of the SNPinder pipeline that are benchmarked.
+ * JMH doesn't allow benchmarks in the default package, and classes of the default package can't be used
+ * from a named package. So the benchmarks use this interface, which is implemented by BenchmarkPipeline
+ * in the default package. Genomes and carrier sets are passed as Object for the same reason.
+ */
+public interface Pipeline {
+
+    /**
+     * Creates the implementation in the default package.
+     *
+     * @return Pipeline - A new pipeline without a VariantIndex.
+     */
+    static Pipeline create() {
+        try {
+            return (Pipeline) Class.forName("BenchmarkPipeline").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkPipeline is not on the class path.", e);
+        }
+    }
+
+    /**
+     * Parses an uncompressed variant_summary file into the VariantIndex of the pipeline.
+     *
+     * @param variantSummary - byte[] - The content of the file, with the header.
+     * @return int - The number of variants in the index.
+     * @throws IOException - When the content can't be read.
+     */
+    int read_variant_summary(byte[] variantSummary) throws IOException;
+
+    /**
+     * Parses an OpenHuman file.
+     *
+     * @param file - File - The OpenHuman file.
+     * @return Object - The Genome.
+     * @throws IOException - When the file can't be read.
+     */
+    Object read_OpenHumanSNPFile(File file) throws IOException;
+
+    /**
+     * Compares two genomes with SNPinder.compare_OpenHumanSNPs(), including matching them to the VariantIndex.
+     *
+     * @param genome1 - Object - The Genome of the first parent.
+     * @param genome2 - Object - The Genome of the second parent.
+     * @return List<String[]> - The pathogenic SNPs.
+     */
+    List<String[]> compare_OpenHumanSNPs(Object genome1, Object genome2);
+
+    /**
+     * Matches a genome to the VariantIndex.
+     *
+     * @param genome - Object - The Genome.
+     * @return Object - The CarrierSet.
+     */
+    Object project(Object genome);
+
+    /**
+     * Compares two genomes that are already matched to the VariantIndex, only the inner loop of the comparison.
+     *
+     * @param carrierSet1 - Object - The CarrierSet of the first parent.
+     * @param carrierSet2 - Object - The CarrierSet of the second parent.
+     * @return List<String[]> - The pathogenic SNPs.
+     */
+    List<String[]> screen(Object carrierSet1, Object carrierSet2);
+
+    /**
+     * Writes pathogenic SNPs to a new file the way write_to_tsvFile() does, the format follows the name of the file.
+     *
+     * @param pathogenicSNPs - List<String[]> - The SNPs.
+     * @param file           - File - The file, it must not exist yet.
+     * @return long - The number of SNPs written.
+     * @throws IOException - When the file can't be written.
+     */
+    long write_to_file(List<String[]> pathogenicSNPs, File file) throws IOException;
+}
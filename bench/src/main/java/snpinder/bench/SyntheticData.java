@@ -0,0 +1,145 @@
+package snpinder.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a variant_summary file and 23andMe files with the same layout as the real files.
+ * The data only depends on the sizes and the seed, so every run benchmarks the same data.
+ * The chromosome, position and alleles of an RS ID are calculated from the RS ID,
+ * so a 23andMe SNP with the RS ID of a ClinVar variant is on the same coordinate.
+ * ClinVar has every third RS ID starting at FIRST_RS_ID, a genome has consecutive RS IDs starting at FIRST_RS_ID,
+ * so a third of the SNPs of a genome, up to three times the number of variants, are in ClinVar.
+ */
+public final class SyntheticData {
+
+    public static final long FIRST_RS_ID = 1000;
+
+    private static final int COLUMNS = 40;
+    private static final String[] ALLELES = {"A", "C", "G", "T"};
+    private static final String[] TYPES = {"single nucleotide variant", "Deletion", "Duplication", "Indel"};
+    private static final String[] DISEASES = {"not provided", "Hereditary cancer-predisposing syndrome",
+            "Cardiomyopathy", "Cystic fibrosis", "Inborn genetic diseases", "not specified"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Generates an uncompressed variant_summary file.
+     * About 30% of the variants are pathogenic, 60% are not, 10% are unknown. 5% have no RS ID.
+     *
+     * @param variants - int - The number of variants.
+     * @param seed     - long - The seed of the random generator.
+     * @return byte[] - The file, with the header.
+     */
+    public static byte[] variant_summary(int variants, long seed) {
+
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder file = new StringBuilder(variants * 200);
+        file.append("#AlleleID\tType\tName\tGeneID\tGeneSymbol\tHGNC_ID\tClinicalSignificance\tClinSigSimple\t")
+                .append("LastEvaluated\tRS# (dbSNP)\tnsv/esv (dbVar)\tRCVaccession\tPhenotypeIDS\tPhenotypeList\t")
+                .append("Origin\tOriginSimple\tAssembly\tChromosomeAccession\tChromosome\tStart\tStop\t")
+                .append("ReferenceAllele\tAlternateAllele\tCytogenetic\tReviewStatus\tNumberSubmitters\tGuidelines\t")
+                .append("TestedInGTR\tOtherIDs\tSubmitterCategories\tVariationID\tPositionVCF\t")
+                .append("ReferenceAlleleVCF\tAlternateAlleleVCF\tcol34\tcol35\tcol36\tcol37\tcol38\tcol39\n");
+        String[] fields = new String[COLUMNS];
+        for (int i = 0; i < variants; i++) {
+            long rsId = clinvar_rsId(i);
+            double significance = random.nextDouble();
+            Arrays.fill(fields, "-");
+            fields[0] = String.valueOf(i + 1);
+            fields[1] = TYPES[random.nextInt(10) < 7 ? 0 : 1 + random.nextInt(TYPES.length - 1)];
+            fields[3] = String.valueOf(1 + random.nextInt(60000));
+            fields[7] = significance < 0.3 ? "1" : significance < 0.9 ? "0" : "-1";
+            fields[9] = random.nextInt(20) == 0 ? "-1" : String.valueOf(rsId);
+            fields[13] = DISEASES[random.nextInt(DISEASES.length)];
+            fields[16] = "GRCh37";
+            fields[18] = chromosome(rsId);
+            fields[31] = String.valueOf(position(rsId));
+            fields[32] = reference_allele(rsId);
+            fields[33] = alternate_allele(rsId);
+            file.append(String.join("\t", fields)).append('\n');
+        }
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a 23andMe file.
+     * 2% of the SNPs have an internal ID and 2% are not called ("--").
+     * The genotype has the alternate allele on each chromosome with a chance of 20%.
+     *
+     * @param file - File - The file to write, named like an OpenHuman file.
+     * @param snps - int - The number of SNPs.
+     * @param seed - long - The seed of the random generator, use a different seed for every genome.
+     * @throws IOException - When the file can't be written.
+     */
+    public static void write_genome(File file, int snps, long seed) throws IOException {
+
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("# This data file generated by 23andMe at: Thu Jan 01 00:00:00 2021\n");
+            out.write("# Synthetic data, see SyntheticData.\n");
+            out.write("# rsid\tchromosome\tposition\tgenotype\n");
+            for (int i = 0; i < snps; i++) {
+                long rsId = FIRST_RS_ID + i;
+                String id = random.nextInt(50) == 0 ? "i" + (5000000 + i) : "rs" + rsId;
+                String chromosome = chromosome(rsId);
+                String genotype;
+                if (random.nextInt(50) == 0) {
+                    genotype = "--";
+                } else {
+                    genotype = allele(rsId, random);
+                    if (!chromosome.equals("MT") && !chromosome.equals("Y")) {
+                        genotype += allele(rsId, random);
+                    }
+                }
+                out.write(id + '\t' + chromosome + '\t' + position(rsId) + '\t' + genotype + '\n');
+            }
+        }
+    }
+
+    /**
+     * Returns the RS ID of a ClinVar variant.
+     *
+     * @param variant - int - The number of the variant.
+     * @return long - The RS ID.
+     */
+    public static long clinvar_rsId(int variant) {
+        return FIRST_RS_ID + 3L * variant;
+    }
+
+    private static String allele(long rsId, SplittableRandom random) {
+        return random.nextInt(5) == 0 ? alternate_allele(rsId) : reference_allele(rsId);
+    }
+
+    private static String chromosome(long rsId) {
+        int code = (int) (mix(rsId) % 25);
+        return code < 22 ? String.valueOf(code + 1) : code == 22 ? "X" : code == 23 ? "Y" : "MT";
+    }
+
+    private static int position(long rsId) {
+        return 1 + (int) ((mix(rsId) >>> 8) % 200_000_000);
+    }
+
+    private static String reference_allele(long rsId) {
+        return ALLELES[(int) ((mix(rsId) >>> 40) & 3)];
+    }
+
+    private static String alternate_allele(long rsId) {
+        return ALLELES[(int) (((mix(rsId) >>> 40) + 1 + ((mix(rsId) >>> 42) % 3)) & 3)];
+    }
+
+    /**
+     * Mixes the bits of an RS ID, the finalizer of MurmurHash3. Always positive.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value >>> 1;
+    }
+}
@@ -0,0 +1,63 @@
+package snpinder.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing pathogenic SNPs to a new output file, in each of the output formats.
+ * The file of the previous invocation is deleted first, so the file is always new.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"tsv", "tsv.gz", "bin"})
+    public String format;
+
+    private List<String[]> pathogenicSNPs;
+    private File directory;
+    private File file;
+    private Pipeline pipeline;
+
+    @Setup
+    public void setup() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] genotypes = {"AA", "AG", "GG", "CT", "TT", "CC"};
+        pathogenicSNPs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String genotype1 = genotypes[random.nextInt(genotypes.length)];
+            String genotype2 = genotypes[random.nextInt(genotypes.length)];
+            pathogenicSNPs.add(new String[]{String.valueOf(SyntheticData.clinvar_rsId(i)), genotype1,
+                    String.valueOf(1 + random.nextInt(22)), genotype1, genotype2, "user1", "user" + (2 + i % 50)});
+        }
+        directory = Files.createTempDirectory("snpinder-bench").toFile();
+        file = new File(directory, "Pathogenic_SNPs." + format);
+        pipeline = Pipeline.create();
+    }
+
+    @TearDown
+    public void tear_down() {
+        file.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public long write_to_tsvFile() throws IOException {
+        file.delete();
+        return pipeline.write_to_file(pathogenicSNPs, file);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Class to quickly check whether a SNP of an OpenHuman file could match a pathogenic variant.
+ * It is a Bloom filter with the RS IDs and the coordinates (chromosome and position) of the pathogenic variants.
+ * When mightMatch() returns false the SNP can't match any pathogenic variant and doesn't have to be kept.
+ * When it returns true the SNP matches, or in about 1% of the cases it doesn't.
+ */
+public class CandidateFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+    private static final long RS_ID_SALT = 0x9E3779B97F4A7C15L;
+    private static final long COORDINATE_SALT = 0xC2B2AE3D27D4EB4FL;
+
+    private final long[] bits;
+    private final long mask;
+
+    private CandidateFilter(long keys) {
+        long size = Long.highestOneBit(Math.max(64, keys * BITS_PER_KEY - 1)) << 1;
+        this.bits = new long[(int) (size >>> 6)];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Creates the filter for the pathogenic variants of an index.
+     *
+     * @param index - VariantIndex - The index.
+     * @return CandidateFilter - The filter.
+     */
+    public static CandidateFilter build(VariantIndex index) {
+
+        int pathogenic = 0;
+        for (int row = 0; row < index.size(); row++) {
+            if (index.getPathogenicity(row) == 1) {
+                pathogenic++;
+            }
+        }
+        CandidateFilter filter = new CandidateFilter(pathogenic * 2L);
+        for (int row = 0; row < index.size(); row++) {
+            if (index.getPathogenicity(row) == 1) {
+                filter.add(index.getRsId(row) ^ RS_ID_SALT);
+                byte chromosome = index.getChromosomeCode(row);
+                if (chromosome != Chromosome.UNKNOWN) {
+                    filter.add(coordinate(chromosome, index.getPosition(row)) ^ COORDINATE_SALT);
+                }
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Checks whether a SNP could match a pathogenic variant, by RS ID or by coordinate.
+     *
+     * @param rsId       - long - The RS ID, negative for an internal ID.
+     * @param chromosome - byte - The chromosome code.
+     * @param position   - int - The position.
+     * @return boolean - false if the SNP certainly doesn't match.
+     */
+    public boolean mightMatch(long rsId, byte chromosome, int position) {
+        return (rsId > 0 && contains(rsId ^ RS_ID_SALT))
+                || (chromosome != Chromosome.UNKNOWN && contains(coordinate(chromosome, position) ^ COORDINATE_SALT));
+    }
+
+    private static long coordinate(byte chromosome, int position) {
+        return ((long) chromosome << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private void add(long key) {
+        long hash = mix(key);
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * step) & mask;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean contains(long key) {
+        long hash = mix(key);
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * step) & mask;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
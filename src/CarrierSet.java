@@ -0,0 +1,262 @@
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to store which pathogenic variants a genome carries.
+ * A genome is compared to the VariantIndex once, the result is kept in two bitsets
+ * with one bit for every row of the index:
+ * called - The genome has a genotype for the pathogenic variant, on the same chromosome and position.
+ * carries - The genotype contains the alternate allele of the variant.
+ * Comparing two genomes is then done with AND and OR on the words of the bitsets.
+ * A genome can be projected by RS ID, with lookups in the index and in the CoordinateIndex for SNPs
+ * whose RS ID doesn't match, or by coordinate,
+ * with a merge-join of the genome and the index which are both sorted by chromosome and position.
+ * A carrier set can also cover only a range of rows, like the rows of one chromosome,
+ * so a cohort can be screened one chromosome at a time.
+ */
+public class CarrierSet {
+
+    private final Genome genome;
+    private final VariantIndex index;
+    private final int firstRow;
+    private final int endRow;
+    private final long[] called;
+    private final long[] carries;
+
+    private CarrierSet(Genome genome, VariantIndex index, int firstRow, int endRow) {
+        this.genome = genome;
+        this.index = index;
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+        this.called = new long[(endRow - firstRow + 63) >>> 6];
+        this.carries = new long[called.length];
+    }
+
+    /**
+     * Compares all SNPs of a genome to the pathogenic variants of the index.
+     * A SNP is matched by RS ID, and by coordinate to the variants on its coordinate that the genome has no SNP for
+     * with the RS ID of the variant. This gives the same result as project_by_coordinate().
+     *
+     * @param genome - Genome - The genome.
+     * @param index  - VariantIndex - The pathogenic variants.
+     * @return CarrierSet - The variants the genome has a call for and the variants it carries.
+     */
+    public static CarrierSet project(Genome genome, VariantIndex index) {
+        return project(genome, index, 0, index.size());
+    }
+
+    /**
+     * Compares all SNPs of a genome to the pathogenic variants in a range of rows of the index.
+     *
+     * @param genome   - Genome - The genome.
+     * @param index    - VariantIndex - The pathogenic variants.
+     * @param firstRow - int - The first row of the range.
+     * @param endRow   - int - The row after the range.
+     * @return CarrierSet - The variants in the range the genome has a call for and the variants it carries.
+     */
+    public static CarrierSet project(Genome genome, VariantIndex index, int firstRow, int endRow) {
+
+        CarrierSet set = new CarrierSet(genome, index, firstRow, endRow);
+        CoordinateIndex coordinates = index.coordinateIndex();
+        for (int i = 0; i < genome.size(); i++) {
+            byte chromosome = genome.getChromosome(i);
+            if (chromosome == Chromosome.UNKNOWN) {
+                continue;
+            }
+            int row = index.indexOf(genome.getRsId(i));
+            if (row != VariantIndex.NOT_FOUND && row >= firstRow && row < endRow && index.getPathogenicity(row) == 1
+                    && index.getPosition(row) == genome.getPosition(i) && index.getChromosomeCode(row) == chromosome) {
+                set.mark(row, genome.getGenotype(i));
+            }
+            // The other variants on the coordinate can have a different RS ID, like the merge-join they are matched too.
+            set.mark_by_coordinate(i, coordinates);
+        }
+        return set;
+    }
+
+    /**
+     * Compares all SNPs of a genome to the pathogenic variants of the index by chromosome and position.
+     * The SNPs in coordinate order and the rows of the index are walked at the same time, like a merge.
+     * This also finds variants for SNPs with an internal ID or a different RS ID.
+     *
+     * @param genome - Genome - The genome.
+     * @param index  - VariantIndex - The pathogenic variants, sorted by coordinate.
+     * @return CarrierSet - The variants the genome has a call for and the variants it carries.
+     */
+    public static CarrierSet project_by_coordinate(Genome genome, VariantIndex index) {
+        return project_by_coordinate(genome, index, 0, index.size());
+    }
+
+    /**
+     * Compares all SNPs of a genome to the pathogenic variants in a range of rows of the index,
+     * by chromosome and position.
+     *
+     * @param genome   - Genome - The genome.
+     * @param index    - VariantIndex - The pathogenic variants, sorted by coordinate.
+     * @param firstRow - int - The first row of the range.
+     * @param endRow   - int - The row after the range.
+     * @return CarrierSet - The variants in the range the genome has a call for and the variants it carries.
+     */
+    public static CarrierSet project_by_coordinate(Genome genome, VariantIndex index, int firstRow, int endRow) {
+
+        if (!index.isSortedByCoordinate()) {
+            throw new IllegalStateException("The VariantIndex must be sorted by coordinate for a merge-join.");
+        }
+        CarrierSet set = new CarrierSet(genome, index, firstRow, endRow);
+        IntBuffer order = genome.coordinateOrder();
+        int size = endRow;
+        int row = Math.max(firstRow, index.firstRow(Chromosome.UNKNOWN + 1));
+        int snp = 0;
+        while (row < size && snp < order.limit()) {
+            byte chromosome = index.getChromosomeCode(row);
+            int position = index.getPosition(row);
+            int compare = genome.compare_coordinate(order.get(snp), chromosome, position);
+            if (compare < 0) {
+                snp++;
+            } else if (compare > 0) {
+                row++;
+            } else {
+                // Every variant on this coordinate is matched with the SNPs on the same coordinate.
+                for (; row < size && index.getChromosomeCode(row) == chromosome && index.getPosition(row) == position; row++) {
+                    if (index.getPathogenicity(row) == 1) {
+                        int match = order.get(snp);
+                        for (int i = snp; i < order.limit() && genome.compare_coordinate(order.get(i), chromosome, position) == 0; i++) {
+                            if (genome.getRsId(order.get(i)) == index.getRsId(row)) {
+                                match = order.get(i);
+                                break;
+                            }
+                        }
+                        set.mark(row, genome.getGenotype(match));
+                    }
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Matches a SNP by its coordinate, for the variants with a different RS ID, like when the SNP has an internal ID.
+     * The pathogenic variants on the coordinate are marked, unless the genome has a SNP with the RS ID
+     * of the variant on that coordinate, or the variant was already matched by another SNP.
+     *
+     * @param snp         - int - The index of the SNP in the genome.
+     * @param coordinates - CoordinateIndex - The coordinate index of the VariantIndex.
+     */
+    private void mark_by_coordinate(int snp, CoordinateIndex coordinates) {
+        byte chromosome = genome.getChromosome(snp);
+        int position = genome.getPosition(snp);
+        int slot = coordinates.indexOf(chromosome, position);
+        if (slot == CoordinateIndex.NOT_FOUND) {
+            return;
+        }
+        for (; slot < coordinates.size(chromosome) && coordinates.getPosition(chromosome, slot) == position; slot++) {
+            int row = coordinates.getRow(chromosome, slot);
+            if (row < firstRow || row >= endRow || index.getPathogenicity(row) != 1 || isCalled(row)) {
+                continue;
+            }
+            int own = genome.indexOf(index.getRsId(row));
+            if (own == Genome.NOT_FOUND || genome.compare_coordinate(own, chromosome, position) != 0) {
+                mark(row, genome.getGenotype(snp));
+            }
+        }
+    }
+
+    /**
+     * Sets the called bit of a row, and the carries bit if the genotype contains the alternate allele.
+     *
+     * @param row      - int - The row of the variant.
+     * @param genotype - byte - The packed genotype of the SNP that matches the variant.
+     */
+    private void mark(int row, byte genotype) {
+        int bit = row - firstRow;
+        called[bit >>> 6] |= 1L << bit;
+        if (Genotype.carries(genotype, Genotype.allele_code(index.getAlternateAllele(row)))) {
+            carries[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Finds the pathogenic variants that a child of the two genomes could carry.
+     * These are the variants both genomes have a call for, where at least one of them carries the alternate allele.
+     *
+     * @param other - CarrierSet - The carrier set of the other parent, projected on the same index.
+     * @return List<String[]> - The disease inducing SNPs of the pair, in the format used by write_to_tsvFile().
+     */
+    public List<String[]> screen(CarrierSet other) {
+
+        if (other.index != index || other.firstRow != firstRow || other.endRow != endRow) {
+            throw new IllegalArgumentException("Carrier sets were projected on different indexes or rows.");
+        }
+        List<String[]> results = new ArrayList<>();
+        for (int word = 0; word < called.length; word++) {
+            long hits = called[word] & other.called[word] & (carries[word] | other.carries[word]);
+            while (hits != 0) {
+                int row = firstRow + (word << 6) + Long.numberOfTrailingZeros(hits);
+                hits &= hits - 1;
+                results.add(to_row(row, other));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Compares two genomes on the rows of the index that changed since the previous ClinVar release.
+     * Only the words of the bitsets that contain a changed row are looked at,
+     * so the work depends on the size of the diff instead of the size of the index.
+     *
+     * @param other - CarrierSet - The carrier set of the other parent, projected on the same index.
+     * @param diff  - VariantIndexDiff - The diff between the previous release and this index.
+     * @return List<String[]> - The pathogenic SNPs on changed rows, in the same format as screen(other).
+     */
+    public List<String[]> screen(CarrierSet other, VariantIndexDiff diff) {
+
+        long[] mask = diff.getMask();
+        if (other.index != index || firstRow != 0 || endRow != index.size() || other.endRow != endRow
+                || other.firstRow != 0 || mask.length != called.length) {
+            throw new IllegalArgumentException("Carrier sets and diff were made for different indexes or rows.");
+        }
+        List<String[]> results = new ArrayList<>();
+        for (int word : diff.getMaskWords()) {
+            long hits = mask[word] & called[word] & other.called[word] & (carries[word] | other.carries[word]);
+            while (hits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(hits);
+                hits &= hits - 1;
+                results.add(to_row(row, other));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Creates the output row of a pathogenic variant for this genome and the other genome.
+     *
+     * @param row   - int - The row of the variant in the index.
+     * @param other - CarrierSet - The carrier set of the other parent.
+     * @return String[] - The row in the format used by write_to_tsvFile().
+     */
+    private String[] to_row(int row, CarrierSet other) {
+        long rsId = index.getRsId(row);
+        byte chromosome = index.getChromosomeCode(row);
+        int position = index.getPosition(row);
+        String genotype1 = Genotype.decode(genome.getGenotype(genome.find(rsId, chromosome, position)));
+        String genotype2 = Genotype.decode(other.genome.getGenotype(other.genome.find(rsId, chromosome, position)));
+        String patho_genotype = other.carries(row) ? genotype2 : genotype1;
+        return new String[]{String.valueOf(rsId), patho_genotype, index.getChromosome(row),
+                genotype1, genotype2, genome.getParentId(), other.genome.getParentId()};
+    }
+
+    public Genome getGenome() {
+        return genome;
+    }
+
+    public boolean isCalled(int row) {
+        int bit = row - firstRow;
+        return row >= firstRow && row < endRow && (called[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public boolean carries(int row) {
+        int bit = row - firstRow;
+        return row >= firstRow && row < endRow && (carries[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Non-visual class to code chromosomes as small numbers.
+ * The codes follow the karyotype order: 1 to 22, X as 23, Y as 24 and MT as 25.
+ * Any other chromosome is coded as UNKNOWN, which never matches another chromosome.
+ */
+public final class Chromosome {
+
+    public static final byte UNKNOWN = 0;
+    public static final byte X = 23;
+    public static final byte Y = 24;
+    public static final byte MT = 25;
+    public static final int COUNT = 26;
+
+    private Chromosome() {
+    }
+
+    /**
+     * Codes a chromosome name.
+     *
+     * @param chromosome - CharSequence - The chromosome, like "1", "X" or "MT".
+     * @return byte - The code, or UNKNOWN.
+     */
+    public static byte code(CharSequence chromosome) {
+        int length = chromosome.length();
+        return code(length, length > 0 ? chromosome.charAt(0) : 0, length > 1 ? chromosome.charAt(1) : 0);
+    }
+
+    /**
+     * Codes the chromosome field of the current line of a tokenizer, without creating a String.
+     *
+     * @param row   - TsvTokenizer - The tokenizer.
+     * @param field - int - The index of the chromosome field.
+     * @return byte - The code, or UNKNOWN.
+     */
+    public static byte code(TsvTokenizer row, int field) {
+        int length = row.length(field);
+        return code(length, length > 0 ? (char) row.byteAt(field, 0) : 0, length > 1 ? (char) row.byteAt(field, 1) : 0);
+    }
+
+    private static byte code(int length, char first, char second) {
+        if (length == 1) {
+            if (first >= '1' && first <= '9') {
+                return (byte) (first - '0');
+            }
+            if (first == 'X') {
+                return X;
+            }
+            if (first == 'Y') {
+                return Y;
+            }
+            if (first == 'M') {
+                return MT;
+            }
+        } else if (length == 2) {
+            if (first >= '1' && first <= '2' && second >= '0' && second <= '9') {
+                int number = (first - '0') * 10 + (second - '0');
+                return number <= 22 ? (byte) number : UNKNOWN;
+            }
+            if (first == 'M' && second == 'T') {
+                return MT;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns the name of a chromosome code.
+     *
+     * @param code - byte - The code.
+     * @return String - The chromosome, like "1", "X" or "MT", or "?" for UNKNOWN.
+     */
+    public static String name(byte code) {
+        switch (code) {
+            case X:
+                return "X";
+            case Y:
+                return "Y";
+            case MT:
+                return "MT";
+            case UNKNOWN:
+                return "?";
+            default:
+                return String.valueOf(code);
+        }
+    }
+}
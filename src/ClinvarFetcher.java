@@ -0,0 +1,222 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * Non-visual class that keeps the local variant_summary gzip file up to date with a ClinvarSource.
+ * The md5sum and size of the release are compared to the last verified download first,
+ * so an unchanged release is not downloaded again.
+ * A download is written to a part file named after the md5sum of the release and hashed while it is written.
+ * When the connection breaks, the download is resumed from the end of the part file,
+ * also in a later run as long as the release didn't change.
+ * The part file only replaces the gzip file when its md5sum matches.
+ */
+public class ClinvarFetcher {
+
+    private static final int ATTEMPTS = 3;
+
+    private final ClinvarSource source;
+    private final File gzipFile;
+    private final File md5File;
+    private final File verifiedFile;
+    private String md5;
+    private long transferred;
+
+    /**
+     * Constructor for a ClinvarFetcher object.
+     *
+     * @param source   - ClinvarSource - Where the release is downloaded from.
+     * @param gzipFile - File - The local variant_summary gzip file.
+     * @param md5File  - File - The local md5 file, written when a release is verified.
+     */
+    public ClinvarFetcher(ClinvarSource source, File gzipFile, File md5File) {
+        this.source = source;
+        this.gzipFile = gzipFile.getAbsoluteFile();
+        this.md5File = md5File;
+        this.verifiedFile = new File(this.gzipFile.getParentFile(), gzipFile.getName() + ".verified");
+    }
+
+    /**
+     * Returns the md5sum of the local gzip file, after fetch() or download().
+     *
+     * @return String - The md5sum.
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    /**
+     * Returns the number of bytes downloaded by the last fetch() or download().
+     *
+     * @return long - The number of bytes.
+     */
+    public long getTransferred() {
+        return transferred;
+    }
+
+    /**
+     * Downloads the current release, unless the local gzip file is already that release.
+     *
+     * @return boolean - true if the release was downloaded, false if the local file was up to date.
+     * @throws IOException - When the release can't be downloaded or its md5sum doesn't match.
+     */
+    public boolean fetch() throws IOException {
+
+        transferred = 0;
+        String remoteMd5 = source.read_md5();
+        long remoteSize = source.size();
+        if (is_verified(remoteMd5, remoteSize)) {
+            md5 = remoteMd5;
+            write_md5(remoteMd5);
+            return false;
+        }
+        download(remoteMd5, remoteSize);
+        return true;
+    }
+
+    /**
+     * Downloads the current release, also when the local gzip file is already that release.
+     *
+     * @throws IOException - When the release can't be downloaded or its md5sum doesn't match.
+     */
+    public void download() throws IOException {
+        transferred = 0;
+        download(source.read_md5(), source.size());
+    }
+
+    /**
+     * Checks whether the local gzip file is the last verified download and is the release of the source.
+     *
+     * @param remoteMd5  - String - The md5sum of the release.
+     * @param remoteSize - long - The size of the release, or -1 if it isn't known.
+     * @return boolean - true if the local file doesn't have to be downloaded.
+     */
+    private boolean is_verified(String remoteMd5, long remoteSize) {
+
+        if (!gzipFile.isFile() || !verifiedFile.isFile()) {
+            return false;
+        }
+        try (BufferedReader inFile = new BufferedReader(new FileReader(verifiedFile))) {
+            String line = inFile.readLine();
+            String[] fields = line == null ? new String[0] : line.split("\t");
+            return fields.length == 3 && fields[0].equals(remoteMd5)
+                    && Long.parseLong(fields[1]) == gzipFile.length()
+                    && Long.parseLong(fields[2]) == gzipFile.lastModified()
+                    && (remoteSize < 0 || remoteSize == gzipFile.length());
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Downloads a release to its part file, resuming when the part file exists, and moves it in place.
+     * A broken connection is retried from the end of the part file.
+     * When the md5sum doesn't match the part file is removed and the download starts over once.
+     *
+     * @param remoteMd5  - String - The md5sum of the release.
+     * @param remoteSize - long - The size of the release, or -1 if it isn't known.
+     * @throws IOException - When the release can't be downloaded or its md5sum doesn't match.
+     */
+    private void download(String remoteMd5, long remoteSize) throws IOException {
+
+        File part = new File(gzipFile.getParentFile(), gzipFile.getName() + "." + remoteMd5 + ".part");
+        remove_other_parts(part);
+        boolean restarted = false;
+        int attempt = 0;
+        while (true) {
+            String digest;
+            try {
+                digest = transfer(part, remoteSize);
+            } catch (IOException e) {
+                if (++attempt >= ATTEMPTS) {
+                    throw e;
+                }
+                System.out.println("Download interrupted, resuming at " + part.length() + " bytes.");
+                continue;
+            }
+            if (digest.equals(remoteMd5)) {
+                break;
+            }
+            Files.deleteIfExists(part.toPath());
+            if (restarted) {
+                throw new IOException("md5sum of the downloaded variant_summary gzip file does not match.");
+            }
+            System.out.println("md5sum does not match, downloading the whole file again.");
+            restarted = true;
+        }
+
+        Files.move(part.toPath(), gzipFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        md5 = remoteMd5;
+        write_md5(remoteMd5);
+        Files.write(verifiedFile.toPath(), (remoteMd5 + "\t" + gzipFile.length() + "\t" + gzipFile.lastModified() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends the rest of the release to the part file.
+     * The bytes already in the part file are hashed from disk, the new bytes while they are written.
+     * A part file that already has all bytes of the release is only hashed.
+     *
+     * @param part       - File - The part file.
+     * @param remoteSize - long - The size of the release, or -1 if it isn't known.
+     * @return String - The md5sum of the complete part file.
+     * @throws IOException - When the download breaks.
+     */
+    private String transfer(File part, long remoteSize) throws IOException {
+
+        MessageDigest digest = Md5.create();
+        long offset = 0;
+        if (part.isFile() && (remoteSize < 0 || part.length() <= remoteSize)) {
+            try (DigestInputStream in = new DigestInputStream(new FileInputStream(part), digest)) {
+                byte[] buffer = new byte[1 << 16];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    offset += read;
+                }
+            }
+        } else {
+            Files.deleteIfExists(part.toPath());
+        }
+        if (offset > 0 && offset == remoteSize) {
+            // The part file is complete, the run that downloaded it stopped before it was moved in place.
+            // A source can't open a range at the end of the file, a server answers it with 416.
+            return Md5.to_hex(digest.digest());
+        }
+
+        try (FileChannel out = FileChannel.open(part.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ReadableByteChannel in = Channels.newChannel(new DigestInputStream(source.open(offset), digest))) {
+            long position = offset;
+            long written;
+            // transferFrom() only returns 0 at the end of the stream, it waits for bytes otherwise.
+            while ((written = out.transferFrom(in, position, 1 << 20)) > 0) {
+                position += written;
+                transferred += written;
+            }
+            if (remoteSize >= 0 && position != remoteSize) {
+                throw new EOFException("Download ended at " + position + " of " + remoteSize + " bytes.");
+            }
+        }
+        return Md5.to_hex(digest.digest());
+    }
+
+    private void remove_other_parts(File part) throws IOException {
+        File[] parts = gzipFile.getParentFile().listFiles((directory, name) ->
+                name.startsWith(gzipFile.getName() + ".") && name.endsWith(".part"));
+        for (File other : parts == null ? new File[0] : parts) {
+            if (!other.equals(part)) {
+                Files.deleteIfExists(other.toPath());
+            }
+        }
+    }
+
+    private void write_md5(String md5) throws IOException {
+        Files.write(md5File.toPath(), (md5 + "  " + gzipFile.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A place the variant_summary gzip file and its md5 file can be downloaded from.
+ * ClinvarFetcher uses it to check whether a new release is available and to download it.
+ * UrlClinvarSource downloads from a server like the NCBI, LocalClinvarSource copies from a directory.
+ */
+public interface ClinvarSource {
+
+    /**
+     * Reads the md5sum of the current release.
+     *
+     * @return String - The md5sum in hexadecimal.
+     * @throws IOException - When the md5 file can't be read.
+     */
+    String read_md5() throws IOException;
+
+    /**
+     * Returns the size of the gzip file of the current release.
+     *
+     * @return long - The size in bytes, or -1 if the source doesn't know it.
+     * @throws IOException - When the source can't be reached.
+     */
+    long size() throws IOException;
+
+    /**
+     * Opens the gzip file of the current release, starting at an offset so an interrupted download can be resumed.
+     *
+     * @param offset - long - The number of bytes to skip at the start of the file.
+     * @return InputStream - The stream, positioned at the offset.
+     * @throws IOException - When the file can't be opened.
+     */
+    InputStream open(long offset) throws IOException;
+}
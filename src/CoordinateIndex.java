@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * Class to look up the variants of a VariantIndex by chromosome and position.
+ * Per chromosome the positions of the variants are stored in a sorted int array, with the rows in a second array.
+ * A lookup is a binary search in the positions of one chromosome, no objects are created.
+ * The variants on a coordinate are the slots from indexOf() onwards, as long as getPosition() is the same.
+ */
+public class CoordinateIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private final int[][] positions = new int[Chromosome.COUNT][];
+    private final int[][] rows = new int[Chromosome.COUNT][];
+
+    /**
+     * Builds the coordinate index of a VariantIndex. Variants with an unknown chromosome are left out.
+     *
+     * @param index - VariantIndex - The variants.
+     */
+    public CoordinateIndex(VariantIndex index) {
+
+        int[] counts = new int[Chromosome.COUNT];
+        for (int row = 0; row < index.size(); row++) {
+            counts[index.getChromosomeCode(row)]++;
+        }
+        // The position and the row are packed in one long, so a primitive sort orders by position and then row.
+        long[][] keys = new long[Chromosome.COUNT][];
+        for (int code = 0; code < Chromosome.COUNT; code++) {
+            keys[code] = new long[counts[code]];
+            counts[code] = 0;
+        }
+        for (int row = 0; row < index.size(); row++) {
+            byte code = index.getChromosomeCode(row);
+            keys[code][counts[code]++] = (long) index.getPosition(row) << 32 | row;
+        }
+        for (int code = 0; code < Chromosome.COUNT; code++) {
+            long[] chromosome = keys[code];
+            Arrays.sort(chromosome);
+            positions[code] = new int[chromosome.length];
+            rows[code] = new int[chromosome.length];
+            for (int slot = 0; slot < chromosome.length; slot++) {
+                positions[code][slot] = (int) (chromosome[slot] >> 32);
+                rows[code][slot] = (int) chromosome[slot];
+            }
+        }
+        positions[Chromosome.UNKNOWN] = new int[0];
+        rows[Chromosome.UNKNOWN] = new int[0];
+    }
+
+    /**
+     * Finds the first variant on a coordinate, with a binary search.
+     *
+     * @param chromosome - byte - The chromosome code.
+     * @param position   - int - The position.
+     * @return int - The slot of the first variant on the coordinate, or NOT_FOUND.
+     */
+    public int indexOf(byte chromosome, int position) {
+        int[] chromosomePositions = positions[chromosome];
+        int low = 0;
+        int high = chromosomePositions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (chromosomePositions[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < chromosomePositions.length && chromosomePositions[low] == position ? low : NOT_FOUND;
+    }
+
+    /**
+     * Returns the number of variants on a chromosome.
+     *
+     * @param chromosome - byte - The chromosome code.
+     * @return int - The number of slots.
+     */
+    public int size(byte chromosome) {
+        return positions[chromosome].length;
+    }
+
+    public int getPosition(byte chromosome, int slot) {
+        return positions[chromosome][slot];
+    }
+
+    public int getRow(byte chromosome, int slot) {
+        return rows[chromosome][slot];
+    }
+}
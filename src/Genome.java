@@ -0,0 +1,350 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Class to store all SNPs of one OpenHuman file.
+ * The SNPs are stored in primitive columns, sorted by RS ID:
+ * the RS ID, the chromosome code, the position and the packed genotype.
+ * Internal 23andMe IDs (i1000001) are stored as negative numbers, so they never match an RS ID.
+ * The SNPs can also be walked in chromosome and position order, with coordinateOrder().
+ * The columns are buffers, so a genome can be read from a GenomeStore file without copying it.
+ */
+public class Genome {
+
+    public static final int NOT_FOUND = -1;
+
+    private final String parentId;
+    private final LongBuffer rsIds;
+    private final ByteBuffer chromosomes;
+    private final IntBuffer positions;
+    private final ByteBuffer genotypes;
+    private volatile IntBuffer coordinateOrder;
+
+    /**
+     * Constructor for a Genome object.
+     *
+     * @param parentId    - String - The ID found in the filename referring to the person the SNPs belong to.
+     * @param rsIds       - long[] - The RS IDs of the SNPs, sorted and without duplicates. Negative for internal IDs.
+     * @param chromosomes - byte[] - The chromosome codes of the SNPs, see Chromosome.
+     * @param positions   - int[] - The positions of the SNPs.
+     * @param genotypes   - byte[] - The packed genotypes of the SNPs, see Genotype.
+     */
+    Genome(String parentId, long[] rsIds, byte[] chromosomes, int[] positions, byte[] genotypes) {
+        this(parentId, LongBuffer.wrap(rsIds), ByteBuffer.wrap(chromosomes), IntBuffer.wrap(positions),
+                ByteBuffer.wrap(genotypes), null);
+    }
+
+    /**
+     * Constructor for a Genome object on buffers, for example parts of a memory-mapped file.
+     * The buffers must have the same number of elements, starting at index 0.
+     *
+     * @param parentId        - String - The ID referring to the person the SNPs belong to.
+     * @param rsIds           - LongBuffer - The RS IDs of the SNPs, sorted and without duplicates.
+     * @param chromosomes     - ByteBuffer - The chromosome codes of the SNPs.
+     * @param positions       - IntBuffer - The positions of the SNPs.
+     * @param genotypes       - ByteBuffer - The packed genotypes of the SNPs.
+     * @param coordinateOrder - IntBuffer - The coordinate order of the SNPs, or null to calculate it when needed.
+     */
+    Genome(String parentId, LongBuffer rsIds, ByteBuffer chromosomes, IntBuffer positions, ByteBuffer genotypes,
+           IntBuffer coordinateOrder) {
+        this.parentId = parentId;
+        this.rsIds = rsIds;
+        this.chromosomes = chromosomes;
+        this.positions = positions;
+        this.genotypes = genotypes;
+        this.coordinateOrder = coordinateOrder;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public int size() {
+        return rsIds.limit();
+    }
+
+    /**
+     * Looks up a SNP with a binary search on the RS IDs.
+     *
+     * @param rsId - long - The RS ID.
+     * @return int - The index of the SNP, or NOT_FOUND.
+     */
+    public int indexOf(long rsId) {
+        int low = 0;
+        int high = rsIds.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = rsIds.get(middle);
+            if (value < rsId) {
+                low = middle + 1;
+            } else if (value > rsId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public long getRsId(int index) {
+        return rsIds.get(index);
+    }
+
+    public byte getChromosome(int index) {
+        return chromosomes.get(index);
+    }
+
+    public int getPosition(int index) {
+        return positions.get(index);
+    }
+
+    public byte getGenotype(int index) {
+        return genotypes.get(index);
+    }
+
+    /**
+     * Returns the indexes of the SNPs sorted by chromosome in karyotype order and then by position.
+     * SNPs with an unknown chromosome are left out. The order is calculated once.
+     *
+     * @return IntBuffer - The indexes of the SNPs in coordinate order, read with absolute get(i) up to limit().
+     */
+    public IntBuffer coordinateOrder() {
+        IntBuffer order = coordinateOrder;
+        if (order == null) {
+            int size = size();
+            int[] counts = new int[Chromosome.COUNT];
+            for (int i = 0; i < size; i++) {
+                counts[getChromosome(i)]++;
+            }
+            // Per chromosome the position and the index are packed in one long, like in CoordinateIndex,
+            // so a primitive sort orders by position and keeps SNPs on the same position in index order.
+            long[][] keys = new long[Chromosome.COUNT][];
+            for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+                keys[code] = new long[counts[code]];
+                counts[code] = 0;
+            }
+            for (int i = 0; i < size; i++) {
+                byte code = getChromosome(i);
+                if (code != Chromosome.UNKNOWN) {
+                    keys[code][counts[code]++] = (long) getPosition(i) << 32 | i;
+                }
+            }
+            int count = 0;
+            for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+                count += keys[code].length;
+            }
+            int[] indexes = new int[count];
+            count = 0;
+            for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+                Arrays.sort(keys[code]);
+                for (long key : keys[code]) {
+                    indexes[count++] = (int) key;
+                }
+            }
+            order = IntBuffer.wrap(indexes).asReadOnlyBuffer();
+            coordinateOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * Compares the coordinate of a SNP with a chromosome and position.
+     *
+     * @param index      - int - The index of the SNP.
+     * @param chromosome - byte - The chromosome code.
+     * @param position   - int - The position.
+     * @return int - Negative, zero or positive when the SNP comes before, at or after the coordinate.
+     */
+    public int compare_coordinate(int index, byte chromosome, int position) {
+        int compare = Byte.compare(getChromosome(index), chromosome);
+        return compare != 0 ? compare : Integer.compare(getPosition(index), position);
+    }
+
+    /**
+     * Looks up the first SNP at a coordinate, with a binary search on the coordinate order.
+     *
+     * @param chromosome - byte - The chromosome code.
+     * @param position   - int - The position.
+     * @return int - The index of the SNP, or NOT_FOUND.
+     */
+    public int indexOfCoordinate(byte chromosome, int position) {
+        IntBuffer order = coordinateOrder();
+        int low = 0;
+        int high = order.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare_coordinate(order.get(middle), chromosome, position) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < order.limit() && compare_coordinate(order.get(low), chromosome, position) == 0 ? order.get(low) : NOT_FOUND;
+    }
+
+    /**
+     * Finds the SNP that matches a variant.
+     * The SNP with the same RS ID is used when it is on the same coordinate,
+     * otherwise the first SNP on the coordinate, which can be a SNP with an internal ID.
+     *
+     * @param rsId       - long - The RS ID of the variant.
+     * @param chromosome - byte - The chromosome code of the variant.
+     * @param position   - int - The position of the variant.
+     * @return int - The index of the SNP, or NOT_FOUND.
+     */
+    public int find(long rsId, byte chromosome, int position) {
+        int index = indexOf(rsId);
+        if (index != NOT_FOUND && chromosome != Chromosome.UNKNOWN && compare_coordinate(index, chromosome, position) == 0) {
+            return index;
+        }
+        return chromosome == Chromosome.UNKNOWN ? NOT_FOUND : indexOfCoordinate(chromosome, position);
+    }
+
+    /**
+     * Splits the genome in one genome per chromosome. SNPs with an unknown chromosome are left out.
+     *
+     * @return Genome[] - The genomes, indexed by chromosome code. Chromosomes without SNPs get an empty genome.
+     */
+    public Genome[] split_by_chromosome() {
+
+        Builder[] builders = new Builder[Chromosome.COUNT];
+        for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+            builders[code] = new Builder(parentId);
+        }
+        for (int i = 0; i < size(); i++) {
+            byte chromosome = getChromosome(i);
+            if (chromosome != Chromosome.UNKNOWN) {
+                builders[chromosome].add(getRsId(i), chromosome, getPosition(i), getGenotype(i));
+            }
+        }
+        Genome[] genomes = new Genome[Chromosome.COUNT];
+        for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+            genomes[code] = builders[code].build();
+        }
+        return genomes;
+    }
+
+    @Override
+    public String toString() {
+        return "ParentId: " + parentId + ", SNPs: " + size();
+    }
+
+    /**
+     * Collects the SNPs of a genome in the order they are read and sorts them when the genome is built.
+     */
+    public static class Builder {
+
+        private final String parentId;
+        private long[] rsIds = new long[1 << 12];
+        private byte[] chromosomes = new byte[rsIds.length];
+        private int[] positions = new int[rsIds.length];
+        private byte[] genotypes = new byte[rsIds.length];
+        private int size;
+
+        public Builder(String parentId) {
+            this.parentId = parentId;
+        }
+
+        /**
+         * Adds a SNP. When an RS ID is added more than once, the first SNP is kept.
+         *
+         * @param rsId       - long - The RS ID.
+         * @param chromosome - byte - The chromosome code.
+         * @param position   - int - The position.
+         * @param genotype   - byte - The packed genotype.
+         */
+        public void add(long rsId, byte chromosome, int position, byte genotype) {
+            if (size == rsIds.length) {
+                int capacity = size * 2;
+                rsIds = Arrays.copyOf(rsIds, capacity);
+                chromosomes = Arrays.copyOf(chromosomes, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                genotypes = Arrays.copyOf(genotypes, capacity);
+            }
+            rsIds[size] = rsId;
+            chromosomes[size] = chromosome;
+            positions[size] = position;
+            genotypes[size] = genotype;
+            size++;
+        }
+
+        /**
+         * Sorts the SNPs by RS ID and removes the duplicates.
+         *
+         * @return Genome - The genome.
+         */
+        public Genome build() {
+
+            int[] order = sorted_order();
+            long[] sortedIds = new long[size];
+            byte[] sortedChromosomes = new byte[size];
+            int[] sortedPositions = new int[size];
+            byte[] sortedGenotypes = new byte[size];
+            int count = 0;
+            for (int i : order) {
+                if (count > 0 && sortedIds[count - 1] == rsIds[i]) {
+                    continue;
+                }
+                sortedIds[count] = rsIds[i];
+                sortedChromosomes[count] = chromosomes[i];
+                sortedPositions[count] = positions[i];
+                sortedGenotypes[count] = genotypes[i];
+                count++;
+            }
+            return new Genome(parentId, Arrays.copyOf(sortedIds, count), Arrays.copyOf(sortedChromosomes, count),
+                    Arrays.copyOf(sortedPositions, count), Arrays.copyOf(sortedGenotypes, count));
+        }
+
+        /**
+         * Returns the order of the SNPs sorted by RS ID. SNPs with the same RS ID keep the order they were added in.
+         *
+         * @return int[] - The indexes of the SNPs in sorted order.
+         */
+        private int[] sorted_order() {
+            // The RS ID and the index are packed in one long, so a primitive sort keeps duplicates in order.
+            long offset = 1L << 38;
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                if (rsIds[i] < -offset || rsIds[i] >= offset || size > 1 << 24) {
+                    return ranked_sorted_order();
+                }
+                keys[i] = (rsIds[i] + offset) << 24 | i;
+            }
+            Arrays.sort(keys);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) (keys[i] & ((1 << 24) - 1));
+            }
+            return order;
+        }
+
+        /**
+         * Returns the order of the SNPs sorted by RS ID, for RS IDs or sizes that don't fit the packed key of sorted_order().
+         * Every RS ID is replaced by its rank among the distinct RS IDs, which does fit next to the index.
+         *
+         * @return int[] - The indexes of the SNPs in sorted order.
+         */
+        private int[] ranked_sorted_order() {
+            long[] distinct = Arrays.copyOf(rsIds, size);
+            Arrays.sort(distinct);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || distinct[i] != distinct[count - 1]) {
+                    distinct[count++] = distinct[i];
+                }
+            }
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = (long) Arrays.binarySearch(distinct, 0, count, rsIds[i]) << 32 | i;
+            }
+            Arrays.sort(keys);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) keys[i];
+            }
+            return order;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-visual class that reads OpenHuman files.
+ * The files of a directory are read at the same time on a fixed number of threads,
+ * the genomes are returned in the order of the file names.
+ * With a CandidateFilter, SNPs that can't match a pathogenic variant are dropped while the file is read.
+ * With a GenomeStore, the genomes are read from the store and the OpenHuman files are only parsed when
+ * the store doesn't have a current genome for them.
+ */
+public class GenomeLoader {
+
+    private final int parallelism;
+    private final CandidateFilter filter;
+    private final GenomeStore store;
+    private final AtomicLong parsedBytes = new AtomicLong();
+
+    /**
+     * Constructor for a GenomeLoader object that keeps all SNPs.
+     *
+     * @param parallelism - int - The maximum number of files that are read at the same time.
+     */
+    public GenomeLoader(int parallelism) {
+        this(parallelism, null, null);
+    }
+
+    /**
+     * Constructor for a GenomeLoader object.
+     *
+     * @param parallelism - int - The maximum number of files that are read at the same time.
+     * @param filter      - CandidateFilter - Only the SNPs that might match are kept, or null to keep all SNPs.
+     *                    Not used for genomes from the store, those always have all SNPs.
+     * @param store       - GenomeStore - The store to read the genomes from, or null to always parse the files.
+     */
+    public GenomeLoader(int parallelism, CandidateFilter filter, GenomeStore store) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, not " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.filter = filter;
+        this.store = store;
+    }
+
+    /**
+     * Returns the size of the OpenHuman files this loader parsed. Genomes read from the store aren't counted.
+     *
+     * @return long - The number of bytes.
+     */
+    public long getParsedBytes() {
+        return parsedBytes.get();
+    }
+
+    /**
+     * Reads all OpenHuman files in a directory.
+     * A file that can't be read is reported and skipped.
+     *
+     * @param directory - File - The directory with the OpenHuman files.
+     * @return List<Genome> - The genomes, sorted by file name.
+     */
+    public List<Genome> load_all(File directory) {
+
+        File[] files = directory.listFiles(File::isFile);
+        List<Genome> genomes = new ArrayList<>();
+        if (files == null || files.length == 0) {
+            return genomes;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.length));
+        try {
+            List<Future<Genome>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> store == null ? read_OpenHumanSNPFile(file) : store.load(file, this)));
+            }
+            for (Future<Genome> future : futures) {
+                try {
+                    genomes.add(future.get());
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return genomes;
+    }
+
+    /**
+     * Reads one OpenHuman file and places all SNPs in a Genome.
+     * SNPs with an ID that isn't an RS ID or an internal ID are skipped.
+     * Internal IDs are stored as negative numbers.
+     * When the loader has a filter, only the SNPs that might match a pathogenic variant are kept.
+     *
+     * @param file - File - The OpenHuman file.
+     * @return Genome - The SNPs of the file.
+     * @throws IOException - When the file can't be read.
+     */
+    public Genome read_OpenHumanSNPFile(File file) throws IOException {
+        return read_OpenHumanSNPFile(file, filter);
+    }
+
+    /**
+     * Reads one OpenHuman file and places the SNPs in a Genome.
+     *
+     * @param file   - File - The OpenHuman file.
+     * @param filter - CandidateFilter - Only the SNPs that might match are kept, or null to keep all SNPs.
+     * @return Genome - The SNPs of the file.
+     * @throws IOException - When the file can't be read.
+     */
+    public Genome read_OpenHumanSNPFile(File file, CandidateFilter filter) throws IOException {
+
+        String parentID = file.getName().split(".23andme.")[0];
+        Genome.Builder genome = new Genome.Builder(parentID);
+        try (TsvTokenizer row = new TsvTokenizer(new FileInputStream(file), 4)) {
+            while (row.next_line()) {
+                if (row.fieldCount() < 4 || row.startsWith(0, "#")) {
+                    continue;
+                }
+
+                long rsId = parse_id(row);
+                if (rsId == 0) {
+                    continue;
+                }
+                byte chromosome = Chromosome.code(row, 1);
+                int position = row.getInt(2);
+                if (filter != null && !filter.mightMatch(rsId, chromosome, position)) {
+                    continue;
+                }
+                genome.add(rsId, chromosome, position, Genotype.encode(row, 3));
+            }
+        }
+        parsedBytes.addAndGet(file.length());
+        return genome.build();
+    }
+
+    /**
+     * Parses the ID of the current line of an OpenHuman file.
+     *
+     * @param row - TsvTokenizer - The tokenizer.
+     * @return long - The RS ID, the internal ID as a negative number, or 0 if the ID isn't valid.
+     */
+    private static long parse_id(TsvTokenizer row) {
+        try {
+            if (row.startsWith(0, "rs")) {
+                return Math.max(0, row.getLong(0, 2));
+            } else if (row.startsWith(0, "i")) {
+                return -Math.max(0, row.getLong(0, 1));
+            }
+        } catch (NumberFormatException e) {
+            // Not a number, the SNP is skipped.
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Non-visual class that stores parsed OpenHuman files split by chromosome, for cohorts that don't fit in memory.
+ * Every chromosome has its own GenomeStore in a subdirectory named after the chromosome.
+ * An OpenHuman file is parsed, split and written, and then dropped, so only a few genomes are in memory at once.
+ * Afterwards the genomes of one chromosome can be read from the partition of that chromosome,
+ * memory-mapped, and screened before the next chromosome is read.
+ */
+public class GenomePartitions {
+
+    private final GenomeStore[] stores = new GenomeStore[Chromosome.COUNT];
+    private final GenomeLoader loader = new GenomeLoader(1);
+
+    /**
+     * Constructor for a GenomePartitions object.
+     *
+     * @param directory - File - The directory the partitions are stored in, it is created when needed.
+     */
+    public GenomePartitions(File directory) {
+        for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+            stores[code] = new GenomeStore(new File(directory, Chromosome.name((byte) code)));
+        }
+    }
+
+    /**
+     * Returns the size of the OpenHuman files that were parsed, files that were already in the partitions aren't counted.
+     *
+     * @return long - The number of bytes.
+     */
+    public long getParsedBytes() {
+        return loader.getParsedBytes();
+    }
+
+    /**
+     * Parses the OpenHuman files of a directory and writes them to the partitions,
+     * on a fixed number of threads. Files that are already in all partitions are not parsed again.
+     * A file that can't be read is reported and skipped.
+     *
+     * @param directory   - File - The directory with the OpenHuman files.
+     * @param parallelism - int - The maximum number of files that are parsed at the same time.
+     * @return List<File> - The OpenHuman files in the partitions, sorted by file name.
+     */
+    public List<File> spill_all(File directory, int parallelism) {
+
+        File[] files = directory.listFiles(File::isFile);
+        List<File> spilled = new ArrayList<>();
+        if (files == null || files.length == 0) {
+            return spilled;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.length));
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> spill(file)));
+            }
+            for (Future<File> future : futures) {
+                try {
+                    spilled.add(future.get());
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return spilled;
+    }
+
+    /**
+     * Parses one OpenHuman file and writes a genome to every partition, also an empty one,
+     * so it can be seen that the file is in all partitions.
+     *
+     * @param file - File - The OpenHuman file.
+     * @return File - The OpenHuman file.
+     * @throws IOException - When the file can't be read or the partitions can't be written.
+     */
+    private File spill(File file) throws IOException {
+
+        if (is_current(file)) {
+            return file;
+        }
+        Genome[] genomes = loader.read_OpenHumanSNPFile(file, null).split_by_chromosome();
+        for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+            stores[code].write_genome(genomes[code], stores[code].file_for(file));
+        }
+        return file;
+    }
+
+    /**
+     * Checks whether every partition has a current genome for an OpenHuman file.
+     *
+     * @param file - File - The OpenHuman file.
+     * @return boolean - true if the file doesn't have to be parsed again.
+     */
+    public boolean is_current(File file) {
+        for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+            if (!stores[code].is_current(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Memory-maps the genomes of one chromosome.
+     *
+     * @param chromosome - int - The chromosome code.
+     * @param files      - List<File> - The OpenHuman files, as returned by spill_all().
+     * @return List<Genome> - The genomes of the chromosome, in the same order as the files.
+     * @throws IOException - When a genome can't be read, also not from its OpenHuman file.
+     */
+    public List<Genome> read_partition(int chromosome, List<File> files) throws IOException {
+        List<Genome> genomes = new ArrayList<>(files.size());
+        for (File file : files) {
+            File storeFile = stores[chromosome].file_for(file);
+            try {
+                genomes.add(stores[chromosome].read_genome(storeFile));
+            } catch (IOException e) {
+                // A truncated or corrupt partition file is written again from the OpenHuman file.
+                System.out.println(e.getMessage() + " Parsing " + file.getName() + " again.");
+                Genome genome = loader.read_OpenHumanSNPFile(file, null).split_by_chromosome()[chromosome];
+                stores[chromosome].write_genome(genome, storeFile);
+                genomes.add(genome);
+            }
+        }
+        return genomes;
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Non-visual class that stores parsed OpenHuman files as binary files, one file per genome.
+ * A file holds the columns of a Genome: the sorted RS IDs, the positions, the coordinate order,
+ * the chromosome codes and the packed genotypes.
+ * Reading a genome memory-maps the file and uses the columns without copying them,
+ * so a genome only has to be parsed from text once, and jobs that run at the same time share the pages.
+ */
+public class GenomeStore {
+
+    private static final int MAGIC = 0x534E5047;
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".genome";
+
+    private final File directory;
+
+    /**
+     * Constructor for a GenomeStore object.
+     *
+     * @param directory - File - The directory the genome files are stored in, it is created when needed.
+     */
+    public GenomeStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the store file of an OpenHuman file.
+     *
+     * @param textFile - File - The OpenHuman file.
+     * @return File - The file in the store.
+     */
+    public File file_for(File textFile) {
+        return new File(directory, textFile.getName() + EXTENSION);
+    }
+
+    /**
+     * Checks whether the store has a genome for an OpenHuman file that is at least as new as the OpenHuman file.
+     *
+     * @param textFile - File - The OpenHuman file.
+     * @return boolean - true if the stored genome can be used.
+     */
+    public boolean is_current(File textFile) {
+        File storeFile = file_for(textFile);
+        return storeFile.isFile() && storeFile.lastModified() >= textFile.lastModified();
+    }
+
+    /**
+     * Returns the genome of an OpenHuman file.
+     * The stored genome is used when it is current, otherwise the OpenHuman file is parsed and stored.
+     * A store file that is truncated or corrupt is replaced the same way.
+     *
+     * @param textFile - File - The OpenHuman file.
+     * @param loader   - GenomeLoader - Used to parse the OpenHuman file, all SNPs are kept.
+     * @return Genome - The genome.
+     * @throws IOException - When the file can't be read or the genome can't be stored.
+     */
+    public Genome load(File textFile, GenomeLoader loader) throws IOException {
+        if (is_current(textFile)) {
+            try {
+                return read_genome(file_for(textFile));
+            } catch (IOException e) {
+                System.out.println(e.getMessage() + " Parsing " + textFile.getName() + " again.");
+            }
+        }
+        Genome genome = loader.read_OpenHumanSNPFile(textFile, null);
+        write_genome(genome, file_for(textFile));
+        return genome;
+    }
+
+    /**
+     * Writes a genome to a store file.
+     * The genome is first written to a temporary file which is then moved in place.
+     *
+     * @param genome - Genome - The genome.
+     * @param file   - File - The store file.
+     * @throws IOException - When the file can't be written.
+     */
+    public void write_genome(Genome genome, File file) throws IOException {
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create the directory " + directory);
+        }
+        int size = genome.size();
+        IntBuffer order = genome.coordinateOrder();
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            byte[] parentId = genome.getParentId().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(order.limit());
+            out.writeInt(parentId.length);
+            out.write(parentId);
+            // The long column starts on a multiple of 8 bytes.
+            while (out.size() % Long.BYTES != 0) {
+                out.writeByte(0);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(genome.getRsId(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(genome.getPosition(i));
+            }
+            for (int i = 0; i < order.limit(); i++) {
+                out.writeInt(order.get(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeByte(genome.getChromosome(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeByte(genome.getGenotype(i));
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory-maps a store file. The columns of the genome are views on the mapped file.
+     *
+     * @param file - File - The store file.
+     * @return Genome - The genome.
+     * @throws IOException - When the file can't be read, isn't a genome file, or is truncated or corrupt.
+     */
+    public Genome read_genome(File file) throws IOException {
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a genome file.");
+            }
+            int size = buffer.getInt();
+            int orderCount = buffer.getInt();
+            byte[] parentId = new byte[buffer.getInt()];
+            buffer.get(parentId);
+            int offset = (buffer.position() + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+            if (size < 0 || orderCount < 0
+                    || offset + (long) size * (Long.BYTES + Integer.BYTES + 2) + (long) orderCount * Integer.BYTES != buffer.limit()) {
+                throw new IOException(file + " is truncated or corrupt.");
+            }
+
+            ByteBuffer rsIds = buffer.slice(offset, size * Long.BYTES);
+            offset += size * Long.BYTES;
+            ByteBuffer positions = buffer.slice(offset, size * Integer.BYTES);
+            offset += size * Integer.BYTES;
+            ByteBuffer order = buffer.slice(offset, orderCount * Integer.BYTES);
+            offset += orderCount * Integer.BYTES;
+            ByteBuffer chromosomes = buffer.slice(offset, size);
+            offset += size;
+            ByteBuffer genotypes = buffer.slice(offset, size);
+
+            return new Genome(new String(parentId, StandardCharsets.UTF_8), rsIds.asLongBuffer(), chromosomes,
+                    positions.asIntBuffer(), genotypes, order.asIntBuffer());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException(file + " is truncated or corrupt.", e);
+        }
+    }
+}
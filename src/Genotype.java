@@ -0,0 +1,122 @@
+/**
+ * Non-visual class to pack a genotype in a single byte.
+ * The bits of the byte are:
+ * 0-1 - The first allele, A, C, G or T as 0, 1, 2 or 3. For an indel D or I as 0 or 1.
+ * 2-3 - The second allele, coded the same way.
+ * 4-5 - The kind of call, BASES, INDEL or NO_CALL.
+ * 6   - Set for a haploid call, which has only the first allele.
+ * Checking whether a genotype contains an allele is done on the bits, without creating objects.
+ */
+public final class Genotype {
+
+    public static final int BASES = 0;
+    public static final int INDEL = 1;
+    public static final int NO_CALL = 2;
+
+    private static final int HAPLOID = 1 << 6;
+    private static final byte NO_CALL_CODE = (byte) (NO_CALL << 4);
+    private static final String BASE_CHARS = "ACGT";
+    private static final String INDEL_CHARS = "DI";
+
+    private Genotype() {
+    }
+
+    /**
+     * Packs a genotype, like "AG", "T", "DI" or "--".
+     * Anything that isn't one or two bases or one or two indel alleles is packed as a no-call.
+     *
+     * @param genotype - CharSequence - The genotype as written in an OpenHuman file.
+     * @return byte - The packed genotype.
+     */
+    public static byte encode(CharSequence genotype) {
+        int length = genotype.length();
+        if (length == 0 || length > 2) {
+            return NO_CALL_CODE;
+        }
+        return encode(genotype.charAt(0), length == 2 ? genotype.charAt(1) : 0, length == 1);
+    }
+
+    /**
+     * Packs the genotype field of the current line of a tokenizer, without creating a String.
+     *
+     * @param row   - TsvTokenizer - The tokenizer.
+     * @param field - int - The index of the genotype field.
+     * @return byte - The packed genotype.
+     */
+    public static byte encode(TsvTokenizer row, int field) {
+        int length = row.length(field);
+        if (length == 0 || length > 2) {
+            return NO_CALL_CODE;
+        }
+        return encode((char) row.byteAt(field, 0), length == 2 ? (char) row.byteAt(field, 1) : 0, length == 1);
+    }
+
+    private static byte encode(char first, char second, boolean haploid) {
+        int haploidBit = haploid ? HAPLOID : 0;
+        int a1 = BASE_CHARS.indexOf(first);
+        int a2 = haploid ? 0 : BASE_CHARS.indexOf(second);
+        if (a1 >= 0 && a2 >= 0) {
+            return (byte) (haploidBit | (BASES << 4) | (a2 << 2) | a1);
+        }
+        a1 = INDEL_CHARS.indexOf(first);
+        a2 = haploid ? 0 : INDEL_CHARS.indexOf(second);
+        if (a1 >= 0 && a2 >= 0) {
+            return (byte) (haploidBit | (INDEL << 4) | (a2 << 2) | a1);
+        }
+        return (byte) (haploidBit | NO_CALL_CODE);
+    }
+
+    /**
+     * Returns the code of an alternate allele, to be used with carries().
+     *
+     * @param alternateAllele - String - The alternate allele of a variant.
+     * @return int - 0 to 3 for a single base, -1 for anything else, which no genotype carries.
+     */
+    public static int allele_code(String alternateAllele) {
+        return alternateAllele.length() == 1 ? BASE_CHARS.indexOf(alternateAllele.charAt(0)) : -1;
+    }
+
+    /**
+     * Checks whether a genotype contains an allele.
+     *
+     * @param genotype   - byte - The packed genotype.
+     * @param alleleCode - int - The code of the allele, from allele_code().
+     * @return boolean - true if one of the alleles of the genotype is the allele.
+     */
+    public static boolean carries(byte genotype, int alleleCode) {
+        if (alleleCode < 0 || kind(genotype) != BASES) {
+            return false;
+        }
+        return (genotype & 3) == alleleCode || ((genotype & HAPLOID) == 0 && ((genotype >> 2) & 3) == alleleCode);
+    }
+
+    public static int kind(byte genotype) {
+        return (genotype >> 4) & 3;
+    }
+
+    public static boolean isHaploid(byte genotype) {
+        return (genotype & HAPLOID) != 0;
+    }
+
+    /**
+     * Unpacks a genotype.
+     *
+     * @param genotype - byte - The packed genotype.
+     * @return String - The genotype as written in an OpenHuman file, "--" or "-" for a no-call.
+     */
+    public static String decode(byte genotype) {
+        String chars;
+        switch (kind(genotype)) {
+            case BASES:
+                chars = BASE_CHARS;
+                break;
+            case INDEL:
+                chars = INDEL_CHARS;
+                break;
+            default:
+                return isHaploid(genotype) ? "-" : "--";
+        }
+        char first = chars.charAt(genotype & 3);
+        return isHaploid(genotype) ? String.valueOf(first) : new String(new char[]{first, chars.charAt((genotype >> 2) & 3)});
+    }
+}
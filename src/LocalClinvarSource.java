@@ -0,0 +1,47 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ClinvarSource for a directory with a variant_summary gzip file and its md5 file,
+ * for example a shared mirror or the test data of a stub release.
+ */
+public class LocalClinvarSource implements ClinvarSource {
+
+    private final File gzipFile;
+    private final File md5File;
+
+    /**
+     * Constructor for a LocalClinvarSource object.
+     *
+     * @param directory - File - The directory with variant_summary.txt.gz and variant_summary.txt.gz.md5.
+     */
+    public LocalClinvarSource(File directory) {
+        this.gzipFile = new File(directory, "variant_summary.txt.gz");
+        this.md5File = new File(directory, "variant_summary.txt.gz.md5");
+    }
+
+    @Override
+    public String read_md5() throws IOException {
+        try (BufferedReader inFile = new BufferedReader(new FileReader(md5File))) {
+            String line = inFile.readLine();
+            if (line == null || line.isBlank()) {
+                throw new IOException(md5File + " is empty.");
+            }
+            return line.trim().split("\\s+")[0];
+        }
+    }
+
+    @Override
+    public long size() {
+        return gzipFile.isFile() ? gzipFile.length() : -1;
+    }
+
+    @Override
+    public InputStream open(long offset) throws IOException {
+        FileChannel channel = FileChannel.open(gzipFile.toPath(), StandardOpenOption.READ);
+        channel.position(offset);
+        return Channels.newInputStream(channel);
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Non-visual class that calculates md5sums in the running process, instead of calling the md5sum program.
+ * A stream can be wrapped with digest_stream(), so the md5sum is calculated while the data is read
+ * for something else, like downloading or parsing.
+ */
+public class Md5 {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Md5() {
+    }
+
+    /**
+     * Creates a new md5 MessageDigest.
+     *
+     * @return MessageDigest - An empty md5 digest.
+     */
+    public static MessageDigest create() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support md5.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Wraps a stream so every byte that is read from it is added to an md5 digest.
+     *
+     * @param in - InputStream - The stream to read.
+     * @return DigestInputStream - The wrapped stream, the digest is available with getMessageDigest().
+     */
+    public static DigestInputStream digest_stream(InputStream in) {
+        return new DigestInputStream(in, create());
+    }
+
+    /**
+     * Reads the rest of a digest stream and returns the md5sum of everything that was read from it.
+     *
+     * @param in - DigestInputStream - A stream created with digest_stream().
+     * @return String - The md5sum in hexadecimal, like the md5sum program prints it.
+     * @throws IOException - When the stream can't be read.
+     */
+    public static String finish(DigestInputStream in) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        while (in.read(buffer) != -1) {
+            // Only the digest of the bytes is needed.
+        }
+        return to_hex(in.getMessageDigest().digest());
+    }
+
+    /**
+     * Calculates the md5sum of a file.
+     *
+     * @param file - File - The file.
+     * @return String - The md5sum in hexadecimal.
+     * @throws IOException - When the file can't be read.
+     */
+    public static String digest_file(File file) throws IOException {
+        try (DigestInputStream in = digest_stream(new FileInputStream(file))) {
+            return finish(in);
+        }
+    }
+
+    /**
+     * Converts a digest to hexadecimal.
+     *
+     * @param digest - byte[] - The digest.
+     * @return String - The digest in lowercase hexadecimal.
+     */
+    public static String to_hex(byte[] digest) {
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
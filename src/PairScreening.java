@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Non-visual class that compares every pair of a list of genomes.
+ * All n*(n-1)/2 pairs are numbered and split over fork/join tasks.
+ * Every task collects the pathogenic SNPs of its own pairs in its own list,
+ * the lists are joined when the tasks are finished, so the tasks never share a list.
+ * Instead of collecting them, the SNPs of every pair can also be handed to a sink as soon as the pair is done.
+ *
+ * @param <T> - The type of the genomes that are compared.
+ */
+public class PairScreening<T> {
+
+    private final List<T> genomes;
+    private final BiFunction<T, T, List<String[]>> compare;
+
+    /**
+     * Constructor for a PairScreening object.
+     *
+     * @param genomes - List<T> - The genomes to compare.
+     * @param compare - BiFunction<T, T, List<String[]>> - Compares two genomes and returns their pathogenic SNPs.
+     */
+    public PairScreening(List<T> genomes, BiFunction<T, T, List<String[]>> compare) {
+        this.genomes = genomes;
+        this.compare = compare;
+    }
+
+    /**
+     * Returns the number of pairs between the genomes.
+     *
+     * @return long - n*(n-1)/2
+     */
+    public long pairs() {
+        long n = genomes.size();
+        return n * (n - 1) / 2;
+    }
+
+    /**
+     * Compares all pairs of genomes.
+     *
+     * @param parallelism - int - The number of threads used to compare the pairs.
+     * @return List<String[]> - The pathogenic SNPs of all pairs, ordered by pair.
+     */
+    public List<String[]> screen(int parallelism) {
+        return run(parallelism, null);
+    }
+
+    /**
+     * Compares all pairs of genomes and hands the pathogenic SNPs of every pair to a sink.
+     * The sink is called from several threads at the same time.
+     *
+     * @param parallelism - int - The number of threads used to compare the pairs.
+     * @param sink        - Consumer<String[]> - Receives the pathogenic SNPs.
+     */
+    public void screen(int parallelism, Consumer<String[]> sink) {
+        run(parallelism, sink);
+    }
+
+    private List<String[]> run(int parallelism, Consumer<String[]> sink) {
+
+        long pairs = pairs();
+        if (pairs == 0) {
+            return new ArrayList<>();
+        }
+        long threshold = Math.max(1, pairs / (parallelism * 8L));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PairTask(0, pairs, threshold, sink));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Finds the first genome of a pair.
+     * The pairs are numbered row by row: (0,1), (0,2) ... (0,n-1), (1,2) ... (n-2,n-1).
+     *
+     * @param pair - long - The number of the pair.
+     * @return int - The index of the first genome.
+     */
+    private int first(long pair) {
+        int n = genomes.size();
+        int i = 0;
+        while (row_start(i + 1, n) <= pair) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of the first pair of a genome, the pair (i, i+1).
+     *
+     * @param i - int - The index of the genome.
+     * @param n - int - The number of genomes.
+     * @return long - The number of the pair.
+     */
+    private static long row_start(int i, int n) {
+        return (long) i * (2L * n - i - 1) / 2;
+    }
+
+    /**
+     * Fork/join task that compares a range of pairs.
+     */
+    private class PairTask extends RecursiveTask<List<String[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long threshold;
+        private final Consumer<String[]> sink;
+
+        PairTask(long from, long to, long threshold, Consumer<String[]> sink) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.sink = sink;
+        }
+
+        @Override
+        protected List<String[]> compute() {
+
+            if (to - from > threshold) {
+                long middle = (from + to) >>> 1;
+                PairTask left = new PairTask(from, middle, threshold, sink);
+                left.fork();
+                List<String[]> right = new PairTask(middle, to, threshold, sink).compute();
+                List<String[]> results = left.join();
+                results.addAll(right);
+                return results;
+            }
+
+            List<String[]> results = new ArrayList<>();
+            int n = genomes.size();
+            int i = first(from);
+            int j = (int) (from - row_start(i, n)) + i + 1;
+            for (long pair = from; pair < to; pair++) {
+                List<String[]> pairResults = compare.apply(genomes.get(i), genomes.get(j));
+                if (sink == null) {
+                    results.addAll(pairResults);
+                } else {
+                    pairResults.forEach(sink);
+                }
+                if (++j == n) {
+                    i++;
+                    j = i + 1;
+                }
+            }
+            return results;
+        }
+    }
+}
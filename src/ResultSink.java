@@ -0,0 +1,263 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Non-visual class that writes pathogenic SNPs to a file while they are being found.
+ * The threads that compare genomes put the SNPs in a bounded queue, one writer thread takes them out
+ * and writes them to the file. When the queue is full the comparing threads wait,
+ * so the number of SNPs in memory never grows beyond the size of the queue.
+ * The file is appended to, and only created when the first SNP arrives.
+ * <p>
+ * The file can be written as:
+ * TSV - A tab separated text file, with a header when the file is new.
+ * TSV_GZIP - The same as TSV, compressed with gzip.
+ * BINARY - Per SNP the number of fields and every field in modified UTF-8, as written by DataOutputStream.
+ * A file in any of these formats can be read back with read_all().
+ */
+public class ResultSink implements Consumer<String[]>, Closeable {
+
+    public enum Format {TSV, TSV_GZIP, BINARY}
+
+    public static final String HEADER = "RS ID\tpathogenic genotype\tchromosome\tgenotype parent 1\tgenotype parent 2\t parent ID 1\t parent ID 2\n\n";
+    public static final int BINARY_MAGIC = 0x534E5052;
+
+    private static final String[] END = new String[0];
+
+    private final File file;
+    private final Format format;
+    private final BlockingQueue<String[]> queue;
+    private final Thread writer;
+    private volatile IOException failure;
+    private long written;
+    private long writeNanos;
+    private boolean closed;
+
+    /**
+     * Constructor for a ResultSink object. Starts the writer thread.
+     *
+     * @param file     - File - The file to write to.
+     * @param format   - Format - The format of the file.
+     * @param capacity - int - The maximum number of SNPs waiting to be written.
+     */
+    public ResultSink(File file, Format format, int capacity) {
+        this.file = file;
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::write_all, "result-writer");
+        this.writer.start();
+    }
+
+    /**
+     * Chooses the format from the name of a file: ".gz" for TSV_GZIP, ".bin" for BINARY, TSV otherwise.
+     *
+     * @param file - File - The file.
+     * @return Format - The format.
+     */
+    public static Format format_for(File file) {
+        String name = file.getName();
+        if (name.endsWith(".gz")) {
+            return Format.TSV_GZIP;
+        }
+        return name.endsWith(".bin") ? Format.BINARY : Format.TSV;
+    }
+
+    /**
+     * Reads all SNPs of a file written by a ResultSink, the format is chosen from the name of the file.
+     * The header and empty lines of a TSV file are skipped.
+     *
+     * @param file     - File - The file to read.
+     * @param consumer - Consumer<String[]> - Receives every SNP, in the format used by write_to_tsvFile().
+     * @throws IOException - When the file can't be read.
+     */
+    public static void read_all(File file, Consumer<String[]> consumer) throws IOException {
+
+        Format format = format_for(file);
+        InputStream stream = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        if (format == Format.BINARY) {
+            try (DataInputStream in = new DataInputStream(stream)) {
+                if (file.length() == 0) {
+                    return;
+                }
+                if (in.readInt() != BINARY_MAGIC) {
+                    throw new IOException(file + " is not a binary result file.");
+                }
+                int fields;
+                while ((fields = in.read()) >= 0) {
+                    String[] snp = new String[fields];
+                    for (int i = 0; i < fields; i++) {
+                        snp[i] = in.readUTF();
+                    }
+                    consumer.accept(snp);
+                }
+            }
+            return;
+        }
+        if (format == Format.TSV_GZIP && file.length() > 0) {
+            stream = new GZIPInputStream(stream, 1 << 16);
+        }
+        String header = HEADER.substring(0, HEADER.indexOf('\n'));
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty() && !line.equals(header)) {
+                    consumer.accept(line.split("\t", -1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a pathogenic SNP, waits when the queue is full.
+     *
+     * @param snp - String[] - The SNP, in the format used by write_to_tsvFile().
+     */
+    @Override
+    public void accept(String[] snp) {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        try {
+            queue.put(snp);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to write a pathogenic SNP.", e);
+        }
+    }
+
+    /**
+     * Returns the number of SNPs written. Only complete after close().
+     *
+     * @return long - The number of SNPs.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Returns the time the writer thread spent opening, writing and closing the file,
+     * without the time it waited for SNPs. Only complete after close().
+     *
+     * @return long - The time in nanoseconds.
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Waits until all SNPs are written and closes the file. Calling it again does nothing.
+     *
+     * @throws IOException - When the file couldn't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing " + file);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Takes the SNPs from the queue and writes them, until close() is called.
+     * After an error, also an unchecked one, the SNPs are still taken from the queue,
+     * so the comparing threads don't wait forever.
+     */
+    private void write_all() {
+
+        DataOutputStream out = null;
+        try {
+            String[] snp;
+            while ((snp = queue.take()) != END) {
+                if (failure != null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    if (out == null) {
+                        out = open();
+                    }
+                    write(out, snp);
+                    written++;
+                } catch (Throwable e) {
+                    // Any error stops the writing, close() reports it once the queue is drained.
+                    failure = e instanceof IOException ? (IOException) e : new IOException("Can't write to " + file, e);
+                }
+                writeNanos += System.nanoTime() - start;
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Writer of " + file + " was interrupted.");
+        } finally {
+            if (out != null) {
+                long start = System.nanoTime();
+                try {
+                    out.close();
+                    writeNanos += System.nanoTime() - start;
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e instanceof IOException ? (IOException) e : new IOException("Can't close " + file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the file for appending and writes the header when the file is new.
+     *
+     * @return DataOutputStream - The buffered stream to write the SNPs to.
+     * @throws IOException - When the file can't be opened.
+     */
+    private DataOutputStream open() throws IOException {
+
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        boolean isNew = channel.size() == 0;
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        if (format == Format.TSV_GZIP) {
+            stream = new BufferedOutputStream(new GZIPOutputStream(stream, 1 << 16), 1 << 16);
+        }
+        DataOutputStream out = new DataOutputStream(stream);
+        if (isNew) {
+            if (format == Format.BINARY) {
+                out.writeInt(BINARY_MAGIC);
+            } else {
+                out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return out;
+    }
+
+    private void write(DataOutputStream out, String[] snp) throws IOException {
+        if (format == Format.BINARY) {
+            out.writeByte(snp.length);
+            for (String field : snp) {
+                out.writeUTF(field);
+            }
+            return;
+        }
+        for (int i = 0; i < snp.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(snp[i].getBytes(StandardCharsets.UTF_8));
+        }
+        out.write('\n');
+    }
+}
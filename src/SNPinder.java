@@ -1,8 +1,17 @@
 import java.io.*;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -11,77 +20,161 @@ import java.util.zip.GZIPInputStream;
  * 29-01-2021
  * <p>
  * Non-visual class that:
- * Downloads a gzip file and md5 file.
+ * Downloads a gzip file and md5 file, when a new release is available.
  * Checks the md5sum.
- * Unzip the gzip file.
- * Reads the file and places the content in a HashMap.
+ * Reads the gzip file while it is decompressed and places the content in a VariantIndex.
  * Reads all OpenHuman files in a specified directory.
  * Compares the SNPs found, to find disease inducing SNPs a child could carry.
  * Writes all disease inducing SNPs to a tsv file.
+ * Updates the tsv file for a new ClinVar release, by only comparing the variants that changed.
+ * Screens couples on request as a service, see ScreeningService.
+ * Measures every stage of the run, see StageMetrics.
+ * Loads ClinVar and the OpenHuman files at the same time, see run_pipeline().
  */
 public class SNPinder {
 
-    private HashMap<String, Variant> pathoSNPs;
-    private ArrayList<String[]> pathogenicSNPs;
+    private static final String GZIP_FILE = "variant_summary.txt.gz";
+    private static final String MD5_FILE = "variant_summary.txt.gz.md5";
+    private static final String CLINVAR_SOURCE = System.getProperty("snpinder.clinvar",
+            "https://ftp.ncbi.nlm.nih.gov/pub/clinvar/tab_delimited/");
+    private static final String OPENHUMAN_DIR = System.getProperty("snpinder.openhuman", "OpenHuman");
+    private static final String OUTPUT_FILE = System.getProperty("snpinder.output", "Pathogenic_SNPs.tsv");
+    private static final String STORE_DIR = System.getProperty("snpinder.store");
+    private static final String PARTITION_DIR = System.getProperty("snpinder.partitions");
+    private static final boolean PREFILTER = Boolean.getBoolean("snpinder.prefilter");
+    private static final String JOIN = System.getProperty("snpinder.join", "hash");
+    private static final String ASSEMBLY = System.getProperty("snpinder.assembly", "GRCh37");
+    private static final int SERVICE_PORT = 8765;
+    private static final int CACHE_SIZE = Integer.getInteger("snpinder.cache", 4096);
+    private static final String METRICS_FILE = System.getProperty("snpinder.metrics", "SNPinder_metrics");
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final StageMetrics metrics = new StageMetrics();
+    private VariantIndex pathoSNPs;
+    private String md5sum_zipfile;
+    private String clinvarMd5;
 
     /**
      * The main function is called on when the code is run.
      *
-     * @param args - NA
+     * @param args - "import" to only store the OpenHuman files in the genome store,
+     *             "rescreen" to update the output file for a new ClinVar release,
+     *             "serve" and optionally a port to screen couples on request, nothing to screen the files.
+     *             The metrics of the run are written at the end, for "serve" when the service is started.
      */
     public static void main(String[] args) {
 
         SNPinder app = new SNPinder();
-        app.get_md5();
-        app.check_md5sum();
-        app.unzip_variant_summaryFile();
-        app.read_variant_summaryFile();
-        app.read_OpenHumanSNPFiles();
-
+        if (args.length > 0 && args[0].equals("import")) {
+            app.import_OpenHumanSNPFiles();
+        } else if (args.length == 0) {
+            app.run_pipeline();
+        } else {
+            app.fetch_variant_summary();
+            app.load_variant_summary();
+            if (args[0].equals("serve")) {
+                app.serve_OpenHumanSNPFiles(args.length > 1 ? Integer.parseInt(args[1]) : SERVICE_PORT);
+            } else if (args[0].equals("rescreen")) {
+                app.rescreen_OpenHumanSNPFiles();
+            } else {
+                app.read_OpenHumanSNPFiles();
+            }
+        }
+        app.write_metrics();
     }
 
     /**
-     * Downloads the variant_summary md5 file.
+     * Writes the summary of the measured stages to a JSON and a CSV file.
+     * The name of the files without extension is set with the system property snpinder.metrics.
      */
-    public void get_md5() {
+    public void write_metrics() {
 
-        System.out.println("Downloading md5sum...");
         try {
+            metrics.write_json(new File(METRICS_FILE + ".json"));
+            metrics.write_csv(new File(METRICS_FILE + ".csv"));
+            System.out.println("Metrics written to " + METRICS_FILE + ".json and " + METRICS_FILE + ".csv.");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
 
-            URL url = new URL("ftp://ftp.ncbi.nlm.nih.gov/pub/clinvar/tab_delimited/variant_summary.txt.gz.md5");
-            ReadableByteChannel rbc = Channels.newChannel(url.openStream());
-            FileOutputStream fileOutputStream = new FileOutputStream("variant_summary.txt.gz.md5");
-            fileOutputStream.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+    /**
+     * Returns the number of threads used for the work that is done in parallel.
+     * Set with the system property snpinder.threads, the default is the number of processors.
+     *
+     * @return int - The number of threads.
+     */
+    public static int parallelism() {
+        return Math.max(1, Integer.getInteger("snpinder.threads", Runtime.getRuntime().availableProcessors()));
+    }
 
-        } catch (java.io.IOException e) {
+    /**
+     * Downloads the variant_summary gzip file and md5 file, only when the release changed since the last download.
+     * An interrupted download is resumed, see ClinvarFetcher.
+     * The source is set with the system property snpinder.clinvar, see clinvar_source().
+     */
+    public void fetch_variant_summary() {
+
+        System.out.println("Checking for a new variant_summary release...");
+        try (StageMetrics.Measurement download = metrics.start(StageMetrics.Stage.DOWNLOAD)) {
+            ClinvarFetcher fetcher = new ClinvarFetcher(clinvar_source(), new File(GZIP_FILE), new File(MD5_FILE));
+            if (fetcher.fetch()) {
+                System.out.println("Download successful.");
+            } else {
+                System.out.println("variant_summary gzip file is up to date.");
+            }
+            md5sum_zipfile = fetcher.getMd5();
+            download.add(fetcher.getTransferred(), 1);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        System.out.println("Download successful.");
     }
 
     /**
      * Downloads the variant_summary gzip file.
+     * The md5sum is calculated while the file is downloaded, an interrupted download is resumed.
      * Calls on the check_md5sum() method to check if the file was downloaded correctly.
      */
     public void getVariant_summaryFile() {
 
         System.out.println("Downloading variant_summary gzip file...");
-        try {
+        try (StageMetrics.Measurement download = metrics.start(StageMetrics.Stage.DOWNLOAD)) {
 
-            URL url = new URL("ftp://ftp.ncbi.nlm.nih.gov/pub/clinvar/tab_delimited/variant_summary.txt.gz");
-            ReadableByteChannel rbc = Channels.newChannel(url.openStream());
-            FileOutputStream fileOutputStream = new FileOutputStream("variant_summary.txt.gz");
-            fileOutputStream.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-            System.out.println("Download successful.");
-            check_md5sum();
+            ClinvarFetcher fetcher = new ClinvarFetcher(clinvar_source(), new File(GZIP_FILE), new File(MD5_FILE));
+            fetcher.download();
+            md5sum_zipfile = fetcher.getMd5();
+            download.add(fetcher.getTransferred(), 1);
 
         } catch (java.io.IOException e) {
             e.printStackTrace();
+            return;
+        }
+        System.out.println("Download successful.");
+        check_md5sum();
+    }
+
+    /**
+     * Returns the source of the variant_summary files, set with the system property snpinder.clinvar.
+     * A URL is downloaded from, anything else is used as a local directory. The default is the NCBI.
+     *
+     * @return ClinvarSource - The source.
+     * @throws IOException - When the URL isn't valid.
+     */
+    private static ClinvarSource clinvar_source() throws IOException {
+        if (CLINVAR_SOURCE.matches("(?i)(https?|ftp)://.*")) {
+            return new UrlClinvarSource(CLINVAR_SOURCE);
         }
+        return new LocalClinvarSource(new File(CLINVAR_SOURCE));
     }
 
     /**
      * Checks whether the md5sum of the variant_summary gzip file, matches the md5 file.
+     * The md5sum calculated during the last download or read of the gzip file is used,
+     * the file is only read again if it hasn't been read yet.
      * If the file doesn't exist or the md5sum doesn't match the gzip file is downloaded again, using the getVariant_summaryFile() method.
      */
     public void check_md5sum() {
@@ -89,31 +182,28 @@ public class SNPinder {
         System.out.println("Checking md5sum.");
         try {
 
-            Runtime rt = Runtime.getRuntime();
-            String check_md5_of_zipfile = "md5sum variant_summary.txt.gz";
-            String check_md5 = "cat variant_summary.txt.gz.md5";
-
-            File data = new File("/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/variant_summary.txt.gz");
+            File data = new File(GZIP_FILE);
             if (!data.exists()) {
                 System.out.println("variant_summary gzip file does not exist.");
                 System.out.println("Downloading now.");
                 getVariant_summaryFile();
+                return;
             }
 
-            Process process = rt.exec(check_md5_of_zipfile);
-            BufferedReader input = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String s = input.readLine();
-            String md5sum_zipfile = s.split("  ")[0];
-
-            process = rt.exec(check_md5);
-            input = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            s = input.readLine();
-            String md5 = s.split("  ")[0];
+            if (md5sum_zipfile == null) {
+                try (StageMetrics.Measurement md5 = metrics.start(StageMetrics.Stage.MD5)) {
+                    md5sum_zipfile = Md5.digest_file(data);
+                    md5.add(data.length(), 1);
+                }
+            }
+            String md5 = read_md5();
 
             if (!(md5sum_zipfile.equals(md5))) {
                 System.out.println("md5sum does not match.");
                 System.out.println("Downloading variant_summary gzip file again.");
+                md5sum_zipfile = null;
                 getVariant_summaryFile();
+                return;
             }
 
         } catch (java.io.IOException e) {
@@ -123,220 +213,667 @@ public class SNPinder {
     }
 
     /**
-     * Unzips the variant_summary gzip file.
+     * Returns the VariantIndex of the loaded variant_summary release.
+     *
+     * @return VariantIndex - The index, or null if no release is loaded.
      */
-    public void unzip_variant_summaryFile() {
-
-        System.out.println("Unzipping variant_summary gzip file...");
-        try {
-            String gzip_filepath = "/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/variant_summary.txt.gz";
-            String unzipped_filepath = "/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/variant_summary.txt";
+    public VariantIndex getPathoSNPs() {
+        return pathoSNPs;
+    }
 
-            byte[] buffer = new byte[1024];
+    /**
+     * Returns the md5sum of the variant_summary release that is loaded in the VariantIndex.
+     *
+     * @return String - The md5sum, or null if no verified release is loaded.
+     */
+    public String getClinvarMd5() {
+        return clinvarMd5;
+    }
 
-            FileInputStream fileIn = new FileInputStream(gzip_filepath);
-            GZIPInputStream gzipInputStream = new GZIPInputStream(fileIn);
-            FileOutputStream fileOutputStream = new FileOutputStream(unzipped_filepath);
+    /**
+     * Reads the md5sum from the downloaded md5 file.
+     *
+     * @return String - The md5sum of the current variant_summary gzip file, or null if the md5 file can't be read.
+     */
+    public String read_md5() {
 
-            int bytes_read;
-            while ((bytes_read = gzipInputStream.read(buffer)) > 0) {
-                fileOutputStream.write(buffer, 0, bytes_read);
-            }
-            gzipInputStream.close();
-            fileOutputStream.close();
-        } catch (java.io.IOException e) {
+        try (BufferedReader inFile = new BufferedReader(new FileReader(MD5_FILE))) {
+            String line = inFile.readLine();
+            return line == null ? null : line.split(" ")[0];
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        System.out.println("Done.");
+        return null;
     }
 
     /**
-     * Reads the content of the variant_summary text file.
-     * Creates a HashMap with as the:
-     * key -  The RS ID of the current SNP.
-     * value - Object of the class Variant.
+     * Fills the VariantIndex for the current variant_summary release.
+     * If a snapshot of this release exists, it is read instead of the variant_summary file.
+     * Otherwise the gzip file is read, the md5sum is checked and a snapshot is saved for the next run.
      */
-    public void read_variant_summaryFile() {
+    public void load_variant_summary() {
 
-        System.out.println("Processing variant_summary file.");
-        try {
-            pathoSNPs = new HashMap<>();
-            BufferedReader inFile = new BufferedReader(new FileReader("/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/variant_summary.txt"));
-            String line = inFile.readLine();
-            while ((line = inFile.readLine()) != null) {
-                String[] row = line.split("\t");
-
-                String rsId = row[9];
-                int alleleId = Integer.parseInt(row[0]);
-                String type = row[1];
-                int position = Integer.parseInt(row[31]);
-                int pathogenicity = Integer.parseInt(row[7]);
-                int geneId = Integer.parseInt(row[3]);
-                String alternateAllele = row[33];
-                String disease = row[13];
-                String referenceAllele = row[32];
-                String chromosome = row[18];
-
-                Variant v = new Variant(alleleId, type, position, pathogenicity, geneId,
-                        alternateAllele, disease, referenceAllele, chromosome);
-                if (v.getPathogenicity() == 1) {
-                    pathoSNPs.put(rsId, v);
-                } else if (v.getPathogenicity() == 0) {
-                    pathoSNPs.putIfAbsent(rsId, v);
-                }
+        String md5 = read_md5();
+        VariantSnapshot snapshot = md5 == null ? null : new VariantSnapshot(new File("."), md5, ASSEMBLY);
+        if (snapshot != null && snapshot.exists()) {
+            System.out.println("Reading variant_summary snapshot.");
+            try {
+                pathoSNPs = snapshot.read_snapshot();
+                clinvarMd5 = md5;
+                System.out.println("variant_summary snapshot read.");
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }
+
+        // The md5sum is calculated while the gzip file is read, it is only read a second time
+        // when the md5sum doesn't match and the file had to be downloaded again.
+        if (!new File(GZIP_FILE).exists()) {
+            check_md5sum();
+        }
+        boolean parsed = stream_variant_summaryFile();
+        if (md5 == null) {
+            return;
+        }
+        if (!parsed || !md5.equals(md5sum_zipfile)) {
+            check_md5sum();
+            parsed = stream_variant_summaryFile();
+        }
+        if (!parsed) {
+            System.out.println("variant_summary gzip file could not be read.");
+            return;
+        }
+        if (!md5.equals(md5sum_zipfile)) {
+            System.out.println("md5sum of the variant_summary gzip file still does not match.");
+            return;
+        }
+        System.out.println("md5sum matched.");
+        clinvarMd5 = md5;
+        try {
+            snapshot.write_snapshot(pathoSNPs);
+            System.out.println("variant_summary snapshot saved.");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the content of the variant_summary gzip file in a single pass.
+     * The file is decompressed while it is parsed, so the unzipped text file is never written to disk.
+     * The md5sum of the gzip file is calculated at the same time.
+     * Creates a VariantIndex with the variants indexed by their RS ID.
+     * The time spent in the md5sum, in reading and decompressing, and in parsing are measured as separate stages.
+     * When the file can't be read to the end, no VariantIndex and md5sum are kept.
+     *
+     * @return boolean - true if the whole file was read.
+     */
+    public boolean stream_variant_summaryFile() {
+
+        System.out.println("Processing variant_summary gzip file.");
+        try (StageMetrics.Measurement parse = metrics.start(StageMetrics.Stage.CLINVAR_PARSE);
+             StageMetrics.TimedInputStream fileIn = new StageMetrics.TimedInputStream(new FileInputStream(GZIP_FILE));
+             DigestInputStream digestIn = Md5.digest_stream(fileIn);
+             StageMetrics.TimedInputStream compressed = new StageMetrics.TimedInputStream(digestIn);
+             StageMetrics.TimedInputStream inFile = new StageMetrics.TimedInputStream(new GZIPInputStream(compressed, BUFFER_SIZE))) {
+            parse.add(0, read_variants(inFile));
+            md5sum_zipfile = Md5.finish(digestIn);
+            parse.add(inFile.getBytes(), 0);
+            parse.exclude(inFile.getNanos());
+            // Reading the file is counted as part of decompressing it, the md5sum only as the time of the digest.
+            long md5Nanos = compressed.getNanos() - fileIn.getNanos();
+            metrics.record(StageMetrics.Stage.MD5, md5Nanos, fileIn.getBytes(), 1, 0, 0);
+            metrics.record(StageMetrics.Stage.DECOMPRESS, inFile.getNanos() - md5Nanos, inFile.getBytes(), 0, 0, 0);
             System.out.println("variant_summary file processed.");
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            // A half read file would give an incomplete index, it must not be screened with or saved as a snapshot.
+            pathoSNPs = null;
+            md5sum_zipfile = null;
+            return false;
         }
     }
 
     /**
-     * Reads the OpenHumanSNP files and for each file, places all SNP in a HashMap.
-     * These HashMaps are then added to an ArrayList.
+     * Places every row of the variant_summary file in the VariantIndex.
+     * The first line of the stream is the header and is skipped.
+     * ClinVar lists a variant once for every assembly, only the rows of the assembly the OpenHuman files
+     * are mapped to are kept, GRCh37 unless set with -Dsnpinder.assembly.
+     * Only the used columns are looked at, and Strings are only created for rows that are kept.
+     * The index is sorted by chromosome and position afterwards.
+     *
+     * @param inFile - InputStream - Stream positioned at the start of the variant_summary file.
+     * @return int - The number of rows read, without the header.
+     * @throws IOException - When the file can't be read.
      */
-    public void read_OpenHumanSNPFiles() {
+    int read_variants(InputStream inFile) throws IOException {
+
+        pathoSNPs = new VariantIndex();
+        TsvTokenizer row = new TsvTokenizer(inFile, 34);
+        row.next_line();
+        int rows = 0;
+        while (row.next_line()) {
+            rows++;
+            if (row.fieldCount() < 34 || row.length(16) != ASSEMBLY.length() || !row.startsWith(16, ASSEMBLY)) {
+                continue;
+            }
 
-        System.out.println("Processing OpenHuman files.");
-        ArrayList<HashMap<String, OpenHumanSNP>> allFiles = new ArrayList<>();
-        File dir = new File("/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/OpenHuman");
-        File[] files = dir.listFiles();
-        assert files != null;
-        for (File file : files) {
+            long rsId = row.getLong(9);
+            int pathogenicity = row.getInt(7);
+            if (rsId < 0 || pathogenicity < 0 || pathogenicity > 1
+                    || (pathogenicity == 0 && pathoSNPs.containsKey(rsId))) {
+                continue;
+            }
+            int alleleId = row.getInt(0);
+            String type = row.getString(1);
+            int position = row.getInt(31);
+            int geneId = row.getInt(3);
+            String alternateAllele = row.getString(33);
+            String disease = row.getString(13);
+            String referenceAllele = row.getString(32);
+            String chromosome = row.getString(18);
+
+            pathoSNPs.add(rsId, alleleId, type, position, pathogenicity, geneId,
+                    alternateAllele, disease, referenceAllele, chromosome);
+        }
+        pathoSNPs.sort_by_coordinate();
+        return rows;
+    }
+
+    /**
+     * Screens the OpenHumanSNP files like fetch_variant_summary(), load_variant_summary() and
+     * read_OpenHumanSNPFiles() after each other, but loads ClinVar and the genomes at the same time.
+     * Parsing the genomes doesn't need the VariantIndex, so only the compare waits for both.
+     * With snpinder.prefilter the genomes are filtered with the index, so they are read after ClinVar
+     * and the critical path is always ClinVar, then the genomes, then the compare.
+     * The critical path, the time of each branch from its own start, the compare and the total time are printed,
+     * the critical path and the total time are added to the metrics.
+     */
+    public void run_pipeline() {
+
+        if (PARTITION_DIR != null) {
+            GenomePartitions partitions = new GenomePartitions(new File(PARTITION_DIR));
+            run_pipeline(() -> spill_genomes(partitions), files -> {
+                if (partitioned()) {
+                    screen_by_chromosome(partitions, files);
+                } else {
+                    screen_genomes(read_genomes());
+                }
+            });
+        } else {
+            run_pipeline(this::read_genomes, this::screen_genomes);
+        }
+    }
+
+    /**
+     * Runs the ClinVar branch and the genome branch on their own threads, and the compare when both are done.
+     *
+     * @param genomeBranch - Supplier<T> - Reads the genomes.
+     * @param compare      - Consumer<T> - Compares the genomes to the VariantIndex and writes the output.
+     */
+    private <T> void run_pipeline(Supplier<T> genomeBranch, Consumer<T> compare) {
+
+        long start = System.nanoTime();
+        // The end of the ClinVar branch, and the start and end of the genome branch.
+        long[] times = new long[3];
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Void> clinvar = CompletableFuture.runAsync(() -> {
+                fetch_variant_summary();
+                load_variant_summary();
+                times[0] = System.nanoTime();
+            }, executor);
+            Supplier<T> timedBranch = () -> {
+                times[1] = System.nanoTime();
+                T genomes = genomeBranch.get();
+                times[2] = System.nanoTime();
+                return genomes;
+            };
+            CompletableFuture<T> genomes = PREFILTER
+                    ? clinvar.thenApplyAsync(ignored -> timedBranch.get(), executor)
+                    : CompletableFuture.supplyAsync(timedBranch, executor);
+            T loaded;
             try {
-                String parentID = file.getName().split(".23andme.")[0];
-                HashMap<String, OpenHumanSNP> allSNPs = new HashMap<>();
-                BufferedReader inFile = new BufferedReader(new FileReader(file));
-                String line;
-                while ((line = inFile.readLine()) != null) {
-                    if (!(line.startsWith("#"))) {
-                        String[] row = line.split("\t");
-
-                        String rsId = "";
-                        if (row[0].startsWith("rs")) {
-                            rsId = row[0].replace("rs", "");
-                        } else if (row[0].startsWith("i")) {
-                            rsId = row[0].replace("i", "");
-                        }
-                        String chromosome = row[1];
-                        int position = Integer.parseInt(row[2]);
-                        String genotype = row[3];
-                        OpenHumanSNP snp = new OpenHumanSNP(parentID, rsId, chromosome, position, genotype);
-                        allSNPs.putIfAbsent(rsId, snp);
+                CompletableFuture.allOf(clinvar, genomes).join();
+                loaded = genomes.join();
+            } catch (CompletionException e) {
+                e.getCause().printStackTrace();
+                return;
+            }
+            if (pathoSNPs == null) {
+                System.out.println("No variant_summary release loaded.");
+                return;
+            }
+
+            long compareStart = System.nanoTime();
+            compare.accept(loaded);
+            long end = System.nanoTime();
+            String path;
+            if (PREFILTER) {
+                path = "clinvar -> genomes -> compare";
+            } else {
+                path = (times[0] >= times[2] ? "clinvar" : "genomes") + " -> compare";
+            }
+            System.out.printf(Locale.ROOT, "Critical path: %s. ClinVar %.1f ms, genomes %.1f ms, compare %.1f ms, total %.1f ms.%n",
+                    path, (times[0] - start) / 1e6, (times[2] - times[1]) / 1e6, (end - compareStart) / 1e6, (end - start) / 1e6);
+            metrics.record_critical_path(path, end - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reads the OpenHumanSNP files and for each file, places all SNP in a Genome.
+     * The files are read at the same time, using parallelism() threads.
+     * The Genomes are added to a List in the order of the file names.
+     * With the system property snpinder.prefilter set to true, only the SNPs that might match
+     * a pathogenic variant are kept, see CandidateFilter.
+     * With the system property snpinder.store set to a directory, the genomes are read from that GenomeStore.
+     * With the system property snpinder.partitions set to a directory, the genomes are screened one chromosome
+     * at a time, see screen_by_chromosome().
+     * When the output file is new, the ClinVar release it was screened with is saved next to it once all SNPs
+     * are written, so it can be updated with rescreen_OpenHumanSNPFiles().
+     */
+    public void read_OpenHumanSNPFiles() {
+
+        if (partitioned()) {
+            GenomePartitions partitions = new GenomePartitions(new File(PARTITION_DIR));
+            screen_by_chromosome(partitions, spill_genomes(partitions));
+            return;
+        }
+        screen_genomes(read_genomes());
+    }
+
+    /**
+     * Compares the genomes to the VariantIndex, screens every pair and writes the SNPs to the output file.
+     *
+     * @param genomes - List<Genome> - The genomes, in the order of the file names.
+     */
+    public void screen_genomes(List<Genome> genomes) {
+
+        long pairs = (long) genomes.size() * (genomes.size() - 1) / 2;
+        System.out.println("Comparing SNPs of " + pairs + " pairs.");
+        screen_to_output(sink -> {
+            try (StageMetrics.Measurement compare = metrics.start(StageMetrics.Stage.PAIR_COMPARE)) {
+                PairScreening<CarrierSet> screening = new PairScreening<>(project_genomes(genomes), CarrierSet::screen);
+                screening.screen(parallelism(), sink);
+                compare.add(0, screening.pairs());
+            }
+        });
+    }
+
+    /**
+     * Parses the OpenHumanSNP files and writes them to the partitions, split by chromosome.
+     * Doesn't need the VariantIndex.
+     *
+     * @param partitions - GenomePartitions - The partitions to write the genomes to.
+     * @return List<File> - The OpenHuman files in the partitions, sorted by file name.
+     */
+    public List<File> spill_genomes(GenomePartitions partitions) {
+
+        System.out.println("Processing OpenHuman files into partitions by chromosome.");
+        List<File> files;
+        try (StageMetrics.Measurement parse = metrics.start(StageMetrics.Stage.GENOME_PARSE)) {
+            long parsedBytes = partitions.getParsedBytes();
+            files = partitions.spill_all(new File(OPENHUMAN_DIR), parallelism());
+            // Files that were already in the partitions aren't parsed, so they aren't counted.
+            parse.add(partitions.getParsedBytes() - parsedBytes, 0);
+        }
+        System.out.println("All OpenHuman files processed.");
+        return files;
+    }
+
+    /**
+     * Screens the OpenHumanSNP files one chromosome at a time, for cohorts that don't fit in memory.
+     * For every chromosome the genomes are memory-mapped from its partition,
+     * compared to the rows of the VariantIndex on that chromosome, and every pair is screened.
+     * Only the carrier sets of one chromosome are in memory at the same time.
+     *
+     * @param partitions - GenomePartitions - The partitions with the genomes, see spill_genomes().
+     * @param files      - List<File> - The OpenHuman files in the partitions.
+     */
+    public void screen_by_chromosome(GenomePartitions partitions, List<File> files) {
+
+        long pairs = (long) files.size() * (files.size() - 1) / 2;
+        System.out.println("Comparing SNPs of " + pairs + " pairs, one chromosome at a time.");
+
+        screen_to_output(sink -> {
+            // Every pair is compared once per chromosome, but it is counted once for the whole run.
+            try (StageMetrics.Measurement compare = metrics.start(StageMetrics.Stage.PAIR_COMPARE)) {
+                for (int code = Chromosome.UNKNOWN + 1; code < Chromosome.COUNT; code++) {
+                    int firstRow = pathoSNPs.firstRow(code);
+                    int endRow = pathoSNPs.firstRow(code + 1);
+                    if (firstRow == endRow) {
+                        continue;
                     }
+                    List<CarrierSet> carrierSets = project_genomes(partitions.read_partition(code, files), firstRow, endRow);
+                    new PairScreening<>(carrierSets, CarrierSet::screen).screen(parallelism(), sink);
                 }
-                allFiles.add(allSNPs);
+                compare.add(0, pairs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the SNPs of a screening to the output file.
+     * When the output file is new, the ClinVar release it was screened with is saved next to it once all SNPs
+     * are written, so it can be updated with rescreen_OpenHumanSNPFiles().
+     *
+     * @param screening - Consumer<ResultSink> - Screens the pairs and adds the SNPs to the sink.
+     */
+    private void screen_to_output(Consumer<ResultSink> screening) {
+
+        File output = new File(OUTPUT_FILE);
+        boolean isNew = !output.exists();
+        long length = output.length();
+        try {
+            ResultSink sink = new ResultSink(output, ResultSink.format_for(output), 1 << 14);
+            try (sink) {
+                screening.accept(sink);
+            }
+            record_write(sink, output.length() - length);
+            System.out.println(sink.getWritten() + " pathogenic SNPs written to " + output + ".");
+            if (!output.isFile()) {
+                // No SNPs were found, the sink didn't create the file, so there's no screening to record.
+                return;
+            }
+            if (isNew && clinvarMd5 != null) {
+                write_screened_md5(output, clinvarMd5);
+            } else if (clinvarMd5 == null || !clinvarMd5.equals(read_screened_md5(output))) {
+                // The file now has SNPs of more than one release, it can't be updated with a diff.
+                Files.deleteIfExists(screened_md5_file(output).toPath());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            // The file may hold part of the SNPs, it can't be updated with a diff.
+            try {
+                Files.deleteIfExists(screened_md5_file(output).toPath());
+            } catch (IOException deleteFailure) {
+                deleteFailure.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Updates the output file for the ClinVar release in the VariantIndex.
+     * The index of the release the output file was screened with is read from its snapshot and compared
+     * to the current index. The SNPs of RS IDs that were added, removed or changed, or that share a coordinate
+     * with such an RS ID, are removed from the file, and only those RS IDs are compared again for every pair of genomes.
+     * Without a previous screening or its snapshot all pairs are screened again.
+     * The genomes are expected to be the same as in the previous screening.
+     */
+    public void rescreen_OpenHumanSNPFiles() {
+
+        if (pathoSNPs == null || clinvarMd5 == null) {
+            System.out.println("No verified variant_summary release loaded.");
+            return;
+        }
+        File output = new File(OUTPUT_FILE);
+        String previousMd5 = read_screened_md5(output);
+        if (clinvarMd5.equals(previousMd5) && output.exists()) {
+            System.out.println(output + " was already screened with this variant_summary release.");
+            return;
+        }
+
+        VariantIndexDiff diff = null;
+        VariantSnapshot previous = previousMd5 == null ? null : new VariantSnapshot(new File("."), previousMd5, ASSEMBLY);
+        if (previous != null && previous.exists() && output.exists()) {
+            try {
+                diff = VariantIndexDiff.compare(previous.read_snapshot(), pathoSNPs);
+                System.out.println("Changed RS IDs since the previous release, " + diff + ".");
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+        if (diff == null) {
+            System.out.println("No previous screening to update, screening all pairs.");
+        }
+
+        List<CarrierSet> carrierSets = read_carrier_sets();
+        VariantIndexDiff changes = diff;
+        PairScreening<CarrierSet> screening = new PairScreening<>(carrierSets,
+                changes == null ? CarrierSet::screen : (set1, set2) -> set1.screen(set2, changes));
+        System.out.println("Comparing SNPs of " + screening.pairs() + " pairs.");
+
+        // The updated SNPs are written to a temporary file which replaces the output file when it's complete.
+        try {
+            File temp = File.createTempFile(output.getName(), ".tmp", output.getAbsoluteFile().getParentFile());
+            ResultSink sink = new ResultSink(temp, ResultSink.format_for(output), 1 << 14);
+            try (sink) {
+                if (changes != null) {
+                    ResultSink.read_all(output, snp -> {
+                        if (snp.length > 0 && !changes.isChanged(Long.parseLong(snp[0]))) {
+                            sink.accept(snp);
+                        }
+                    });
+                }
+                try (StageMetrics.Measurement compare = metrics.start(StageMetrics.Stage.PAIR_COMPARE)) {
+                    screening.screen(parallelism(), sink);
+                    compare.add(0, screening.pairs());
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp.toPath());
+                throw e;
+            }
+            record_write(sink, temp.length());
+            System.out.println(sink.getWritten() + " pathogenic SNPs written to " + output + ".");
+            Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            write_screened_md5(output, clinvarMd5);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the OpenHumanSNP files once and screens couples on request, until the process is stopped.
+     * The number of couples in the result cache is set with the system property snpinder.cache.
+     *
+     * @param port - int - The port on the loopback address to listen on.
+     * @return ScreeningService - The running service, or null if it couldn't be started.
+     */
+    public ScreeningService serve_OpenHumanSNPFiles(int port) {
+
+        if (pathoSNPs == null) {
+            System.out.println("No variant_summary release loaded.");
+            return null;
+        }
+        ScreeningService service = new ScreeningService(read_carrier_sets(), clinvarMd5, CACHE_SIZE, parallelism());
+        try {
+            service.start(port);
+            System.out.println("Screening couples on http://localhost:" + service.getPort() + "/screen?parent1=ID&parent2=ID");
+            return service;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the OpenHumanSNP files and compares every genome to the VariantIndex.
+     * Comparing them to the index is measured as part of the pair compare stage.
+     *
+     * @return List<CarrierSet> - The carrier sets, in the order of the file names.
+     */
+    private List<CarrierSet> read_carrier_sets() {
+        List<Genome> genomes = read_genomes();
+        return metrics.measure(StageMetrics.Stage.PAIR_COMPARE, () -> project_genomes(genomes));
+    }
+
+    /**
+     * Reads the OpenHumanSNP files on parallelism() threads, measured as the genome parse stage.
+     * Only needs the VariantIndex when snpinder.prefilter is set.
+     *
+     * @return List<Genome> - The genomes, in the order of the file names.
+     */
+    public List<Genome> read_genomes() {
+
+        System.out.println("Processing OpenHuman files.");
+        List<Genome> allFiles;
+        try (StageMetrics.Measurement parse = metrics.start(StageMetrics.Stage.GENOME_PARSE)) {
+            CandidateFilter filter = PREFILTER && pathoSNPs != null ? CandidateFilter.build(pathoSNPs) : null;
+            File directory = new File(OPENHUMAN_DIR);
+            GenomeLoader loader = new GenomeLoader(parallelism(), filter, genome_store());
+            allFiles = loader.load_all(directory);
+            // Genomes read from the store aren't parsed, so their files aren't counted.
+            parse.add(loader.getParsedBytes(), 0);
+            for (Genome genome : allFiles) {
+                parse.add(0, genome.size());
+            }
+        }
         System.out.println("All OpenHuman files processed.");
-        System.out.println("Comparing SNPs.");
-        pathogenicSNPs = new ArrayList<>();
-
-        System.out.println("Current pair: " + allFiles.get(0).get("2772695").getParentId() + " and " + allFiles.get(1).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(0), allFiles.get(1));
-        System.out.println("Current pair: " + allFiles.get(0).get("2772695").getParentId() + " and " + allFiles.get(2).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(0), allFiles.get(2));
-        System.out.println("Current pair: " + allFiles.get(0).get("2772695").getParentId() + " and " + allFiles.get(3).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(0), allFiles.get(3));
-        System.out.println("Current pair: " + allFiles.get(0).get("2772695").getParentId() + " and " + allFiles.get(4).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(0), allFiles.get(4));
-        System.out.println("Current pair: " + allFiles.get(0).get("2772695").getParentId() + " and " + allFiles.get(5).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(0), allFiles.get(5));
-
-        System.out.println("Current pair: " + allFiles.get(1).get("2772695").getParentId() + " and " + allFiles.get(2).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(1), allFiles.get(2));
-        System.out.println("Current pair: " + allFiles.get(1).get("2772695").getParentId() + " and " + allFiles.get(3).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(1), allFiles.get(3));
-        System.out.println("Current pair: " + allFiles.get(1).get("2772695").getParentId() + " and " + allFiles.get(4).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(1), allFiles.get(4));
-        System.out.println("Current pair: " + allFiles.get(1).get("2772695").getParentId() + " and " + allFiles.get(5).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(1), allFiles.get(5));
-
-        System.out.println("Current pair: " + allFiles.get(2).get("2772695").getParentId() + " and " + allFiles.get(3).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(2), allFiles.get(3));
-        System.out.println("Current pair: " + allFiles.get(2).get("2772695").getParentId() + " and " + allFiles.get(4).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(2), allFiles.get(4));
-        System.out.println("Current pair: " + allFiles.get(2).get("2772695").getParentId() + " and " + allFiles.get(5).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(2), allFiles.get(5));
-
-        System.out.println("Current pair: " + allFiles.get(3).get("2772695").getParentId() + " and " + allFiles.get(4).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(3), allFiles.get(4));
-        System.out.println("Current pair: " + allFiles.get(3).get("2772695").getParentId() + " and " + allFiles.get(5).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(3), allFiles.get(5));
-
-        System.out.println("Current pair: " + allFiles.get(4).get("2772695").getParentId() + " and " + allFiles.get(5).get("2772695").getParentId());
-        compare_OpenHumanSNPs(allFiles.get(4), allFiles.get(5));
-
-        write_to_tsvFile(pathogenicSNPs);
+        return allFiles;
+    }
+
+    private boolean partitioned() {
+        return PARTITION_DIR != null && pathoSNPs != null && pathoSNPs.isSortedByCoordinate();
     }
 
     /**
-     * Compares SNPs from both files, to see if a nucleotide combination causes a disease.
+     * Adds the write stage of a closed ResultSink to the metrics.
+     * The wall time is the time the writer thread spent writing, not the time it waited for SNPs.
      *
-     * @param snpFile1 - HashMap<OpenHumanSNP> - All SNPs from the first parent.
-     * @param snpFile2 - HashMap<OpenHumanSNP> - All SNPs from the second parent.
+     * @param sink  - ResultSink - The closed sink.
+     * @param bytes - long - The number of bytes written to the file.
      */
-    public void compare_OpenHumanSNPs(HashMap<String, OpenHumanSNP> snpFile1, HashMap<String, OpenHumanSNP> snpFile2) {
+    private void record_write(ResultSink sink, long bytes) {
+        metrics.record(StageMetrics.Stage.WRITE, sink.getWriteNanos(), bytes, sink.getWritten(), 0, 0);
+    }
 
-        HashMap<String, OpenHumanSNP> small = snpFile1.size() < snpFile2.size() ? snpFile1 : snpFile2;
-        HashMap<String, OpenHumanSNP> big = snpFile1.size() > snpFile2.size() ? snpFile1 : snpFile2;
+    /**
+     * Returns the file that holds the md5sum of the ClinVar release an output file was screened with.
+     *
+     * @param output - File - The output file.
+     * @return File - The md5 file next to the output file.
+     */
+    private static File screened_md5_file(File output) {
+        return new File(output.getAbsoluteFile().getParentFile(), output.getName() + ".clinvar.md5");
+    }
 
-        for (String rsId : small.keySet()) {
-            if (big.containsKey(rsId) && pathoSNPs.containsKey(rsId)) {
-                OpenHumanSNP snp1 = small.get(rsId);
-                OpenHumanSNP snp2 = big.get(rsId);
-                Variant pathoSNP = pathoSNPs.get(rsId);
-                if (pathoSNP.getPosition() == snp1.getPosition() && pathoSNP.getChromosome().equals(snp1.getChromosome()) && pathoSNP.getPathogenicity() == 1
-                        && pathoSNP.getPosition() == snp2.getPosition() && pathoSNP.getChromosome().equals(snp2.getChromosome())) {
+    /**
+     * Reads the md5sum of the ClinVar release an output file was screened with.
+     *
+     * @param output - File - The output file.
+     * @return String - The md5sum, or null if it isn't known.
+     */
+    private static String read_screened_md5(File output) {
 
-                    boolean cause_disease = false;
+        File file = screened_md5_file(output);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (BufferedReader inFile = new BufferedReader(new FileReader(file))) {
+            String line = inFile.readLine();
+            return line == null || line.isEmpty() ? null : line.trim();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
-                    // Retrieve genotypes of the parents to compare nucleotides.
-                    String[] genotype1 = new String[]{"", ""};
-                    genotype1[0] = String.valueOf(snp1.getGenotype().charAt(0));
-                    if (snp1.getGenotype().length() == 2) {
-                        genotype1[1] = String.valueOf(snp1.getGenotype().charAt(1));
-                    }
-                    String[] genotype2 = new String[]{"", ""};
-                    genotype2[0] = String.valueOf(snp2.getGenotype().charAt(0));
-                    if (snp2.getGenotype().length() == 2) {
-                        genotype2[1] = String.valueOf(snp2.getGenotype().charAt(1));
-                    }
+    private static void write_screened_md5(File output, String md5) throws IOException {
+        Files.write(screened_md5_file(output).toPath(), (md5 + "\n").getBytes(StandardCharsets.UTF_8));
+    }
 
-                    // Check if the alternate allele is present in the genotype of the parents.
-                    String patho_genotype = "";
-                    String genotype_1 = Arrays.toString(genotype1).replace("[", "").replace(", ", "").replace("]", "");
-                    String genotype_2 = Arrays.toString(genotype2).replace("[", "").replace(", ", "").replace("]", "");
-                    for (String allele : genotype1) {
-                        if (allele.equals(pathoSNP.getAlternateAllele())) {
-                            cause_disease = true;
-                            patho_genotype = genotype_1;
-                            break;
-                        }
-                    }
-                    for (String allele : genotype2) {
-                        if (allele.equals(pathoSNP.getAlternateAllele())) {
-                            cause_disease = true;
-                            patho_genotype = genotype_2;
-                            break;
-                        }
-                    }
+    /**
+     * Parses the OpenHumanSNP files that aren't in the genome store yet and stores them.
+     * The store directory is set with the system property snpinder.store.
+     */
+    public void import_OpenHumanSNPFiles() {
 
-                    // If the alternate allele is present, it get added to an ArrayList.
-                    if (cause_disease) {
-                        String[] patho_snp = new String[]{rsId, patho_genotype, pathoSNP.getChromosome(),
-                                genotype_1, genotype_2, snp1.getParentId(), snpFile2.get("2772695").getParentId()};
-                        pathogenicSNPs.add(patho_snp);
-                    }
-                }
-            }
+        GenomeStore store = genome_store();
+        if (store == null) {
+            System.out.println("No genome store, set the system property snpinder.store.");
+            return;
+        }
+        System.out.println("Importing OpenHuman files.");
+        List<Genome> genomes = new GenomeLoader(parallelism(), null, store).load_all(new File(OPENHUMAN_DIR));
+        System.out.println(genomes.size() + " OpenHuman files in the genome store.");
+    }
+
+    /**
+     * Returns the genome store set with the system property snpinder.store.
+     *
+     * @return GenomeStore - The store, or null if no store is used.
+     */
+    private static GenomeStore genome_store() {
+        return STORE_DIR == null ? null : new GenomeStore(new File(STORE_DIR));
+    }
+
+    /**
+     * Compares every genome once to the VariantIndex, on parallelism() threads.
+     * With the system property snpinder.join set to "merge" the genomes are matched by chromosome and position
+     * with a merge-join, otherwise by RS ID.
+     *
+     * @param genomes - List<Genome> - The genomes.
+     * @return List<CarrierSet> - The carrier sets, in the same order as the genomes.
+     */
+    public List<CarrierSet> project_genomes(List<Genome> genomes) {
+        return project_genomes(genomes, 0, pathoSNPs.size());
+    }
+
+    /**
+     * Compares every genome once to a range of rows of the VariantIndex, on parallelism() threads.
+     *
+     * @param genomes  - List<Genome> - The genomes.
+     * @param firstRow - int - The first row of the range.
+     * @param endRow   - int - The row after the range.
+     * @return List<CarrierSet> - The carrier sets, in the same order as the genomes.
+     */
+    public List<CarrierSet> project_genomes(List<Genome> genomes, int firstRow, int endRow) {
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism());
+        try {
+            return pool.submit(() -> genomes.parallelStream()
+                    .map(genome -> project_genome(genome, firstRow, endRow))
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
         }
     }
 
+    /**
+     * Compares a genome to the VariantIndex, by RS ID or by coordinate depending on snpinder.join.
+     *
+     * @param genome - Genome - The genome.
+     * @return CarrierSet - The pathogenic variants the genome has a call for and carries.
+     */
+    private CarrierSet project_genome(Genome genome) {
+        return project_genome(genome, 0, pathoSNPs.size());
+    }
+
+    /**
+     * Compares a genome to a range of rows of the VariantIndex, by RS ID or by coordinate depending on snpinder.join.
+     *
+     * @param genome   - Genome - The genome.
+     * @param firstRow - int - The first row of the range.
+     * @param endRow   - int - The row after the range.
+     * @return CarrierSet - The pathogenic variants in the range the genome has a call for and carries.
+     */
+    private CarrierSet project_genome(Genome genome, int firstRow, int endRow) {
+        if (JOIN.equals("merge")) {
+            return CarrierSet.project_by_coordinate(genome, pathoSNPs, firstRow, endRow);
+        }
+        return CarrierSet.project(genome, pathoSNPs, firstRow, endRow);
+    }
+
+    /**
+     * Compares SNPs from both files, to see if a nucleotide combination causes a disease.
+     *
+     * @param genome1 - Genome - All SNPs from the first parent.
+     * @param genome2 - Genome - All SNPs from the second parent.
+     * @return List<String[]> - The disease inducing SNPs of the pair, in the format used by write_to_tsvFile().
+     */
+    public List<String[]> compare_OpenHumanSNPs(Genome genome1, Genome genome2) {
+        return project_genome(genome1).screen(project_genome(genome2));
+    }
+
     /**
      * Writes any disease inducing genotypes for a child between two parents to a tsv file.
+     * The file is appended to, the header is only written when the file is new.
+     * The format is chosen from the name of the file, see ResultSink.
      *
      * @param pathogenicSNPs - ArrayList<String[]> - An ArrayList with all SNPs between two parents in String arrays.
      *                       The String arrays contain the:
@@ -352,25 +889,14 @@ public class SNPinder {
     public void write_to_tsvFile(ArrayList<String[]> pathogenicSNPs) {
 
         System.out.println("Writing pathogenic SNPs to tsv file...");
+        File output = new File(OUTPUT_FILE);
+        long length = output.length();
         try {
-            File file = new File("/home/gabevdh/IdeaProjects/BI-6a_eindopdracht_Gabe_van_den_Hoeven/Pathogenic_SNPs.tsv");
-            if (!(pathogenicSNPs.isEmpty())) {
-                if (!(file.exists())) {
-                    BufferedWriter write_file = new BufferedWriter(new FileWriter("Pathogenic_SNPs.tsv"));
-                    String line = "RS ID\tpathogenic genotype\tchromosome\tgenotype parent 1\tgenotype parent 2\t parent ID 1\t parent ID 2\n\n";
-                    write_file.write(line);
-                    write_file.close();
-                }
-
-                String line = "";
-                BufferedWriter writer = new BufferedWriter(new FileWriter("Pathogenic_SNPs.tsv", true));
-                for (String[] snp : pathogenicSNPs) {
-                    line = snp[0] + "\t" + snp[1] + "\t" + snp[2] + "\t" + snp[3] + "\t" + snp[4] + "\t" + snp[5] + "\t" + snp[6] + "\n";
-                    writer.append(line);
-                }
-                writer.append(line);
-                writer.close();
+            ResultSink sink = new ResultSink(output, ResultSink.format_for(output), 1 << 14);
+            try (sink) {
+                pathogenicSNPs.forEach(sink);
             }
+            record_write(sink, output.length() - length);
         } catch (IOException e) {
             e.printStackTrace();
         }
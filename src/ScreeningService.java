@@ -0,0 +1,200 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Non-visual class that screens couples on request, with the VariantIndex and the genomes kept in memory.
+ * The service listens on the loopback address and answers:
+ * GET /genomes - The parent IDs of the loaded genomes, one per line.
+ * GET /screen?parent1=ID&parent2=ID - The pathogenic SNPs of the couple, in the format of the output file.
+ * The results of the most recently requested couples are kept in a cache,
+ * the least recently used couple is removed when the cache is full.
+ * The server writes the headers and the body of a response separately, so start the JVM with
+ * -Dsun.net.httpserver.nodelay=true, otherwise every small response waits for a delayed ACK.
+ */
+public class ScreeningService {
+
+    private final String clinvarMd5;
+    private final Map<String, CarrierSet> carrierSets = new LinkedHashMap<>();
+    private final PairCache cache;
+    private final int parallelism;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor for a ScreeningService object.
+     *
+     * @param carrierSets - List<CarrierSet> - The genomes, projected on the VariantIndex.
+     * @param clinvarMd5  - String - The md5sum of the ClinVar release of the VariantIndex, part of the cache key.
+     * @param cacheSize   - int - The maximum number of couples in the cache.
+     * @param parallelism - int - The number of requests handled at the same time.
+     */
+    public ScreeningService(List<CarrierSet> carrierSets, String clinvarMd5, int cacheSize, int parallelism) {
+        for (CarrierSet set : carrierSets) {
+            this.carrierSets.putIfAbsent(set.getGenome().getParentId(), set);
+        }
+        this.clinvarMd5 = clinvarMd5;
+        this.cache = new PairCache(cacheSize);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts listening on the loopback address.
+     *
+     * @param port - int - The port, or 0 for any free port.
+     * @throws IOException - When the port can't be used.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(parallelism);
+        server.setExecutor(executor);
+        server.createContext("/genomes", this::handle_genomes);
+        server.createContext("/screen", this::handle_screen);
+        server.start();
+    }
+
+    /**
+     * Returns the port the service listens on.
+     *
+     * @return int - The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the service, requests that are being handled get at most a second to finish.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Screens a couple, or takes the result from the cache.
+     *
+     * @param parentId1 - String - The parent ID of the first parent.
+     * @param parentId2 - String - The parent ID of the second parent.
+     * @return List<String[]> - The pathogenic SNPs of the couple, or null if a parent ID isn't loaded.
+     */
+    public List<String[]> screen(String parentId1, String parentId2) {
+
+        CarrierSet set1 = carrierSets.get(parentId1);
+        CarrierSet set2 = carrierSets.get(parentId2);
+        if (set1 == null || set2 == null) {
+            return null;
+        }
+        String key = clinvarMd5 + '\t' + parentId1 + '\t' + parentId2;
+        List<String[]> results = cache.get(key);
+        if (results == null) {
+            // Two requests for the same couple can both screen it, the results are the same.
+            results = Collections.unmodifiableList(set1.screen(set2));
+            cache.put(key, results);
+        }
+        return results;
+    }
+
+    private void handle_genomes(HttpExchange exchange) throws IOException {
+
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respond(exchange, 405, "Only GET is supported.\n");
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        for (String parentId : carrierSets.keySet()) {
+            body.append(parentId).append('\n');
+        }
+        respond(exchange, 200, body.toString());
+    }
+
+    private void handle_screen(HttpExchange exchange) throws IOException {
+
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respond(exchange, 405, "Only GET is supported.\n");
+            return;
+        }
+        Map<String, String> query = parse_query(exchange.getRequestURI().getRawQuery());
+        String parentId1 = query.get("parent1");
+        String parentId2 = query.get("parent2");
+        if (parentId1 == null || parentId2 == null) {
+            respond(exchange, 400, "Use /screen?parent1=ID&parent2=ID\n");
+            return;
+        }
+        List<String[]> results = screen(parentId1, parentId2);
+        if (results == null) {
+            respond(exchange, 404, "Unknown parent ID.\n");
+            return;
+        }
+        StringBuilder body = new StringBuilder(ResultSink.HEADER);
+        for (String[] snp : results) {
+            body.append(String.join("\t", snp)).append('\n');
+        }
+        respond(exchange, 200, body.toString());
+    }
+
+    /**
+     * Splits the query of a request in its parameters.
+     *
+     * @param query - String - The raw query, can be null.
+     * @return Map<String, String> - The decoded parameters.
+     */
+    private static Map<String, String> parse_query(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int split = parameter.indexOf('=');
+            if (split > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, split), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/tab-separated-values; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * The results of the couples, in access order so the eldest entry is the least recently used.
+     */
+    private static class PairCache {
+
+        private final LinkedHashMap<String, List<String[]>> entries;
+
+        PairCache(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<String[]>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized List<String[]> get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, List<String[]> results) {
+            entries.put(key, results);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for one stage of a run, committed by StageMetrics when the stage ends.
+ * The event is recorded when a flight recording is running, for example with -XX:StartFlightRecording.
+ */
+@Name("snpinder.Stage")
+@Label("SNPinder Stage")
+@Category("SNPinder")
+@Description("Wall time, data processed, allocation and peak heap of a stage of the pipeline.")
+public class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Wall Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long wallTime;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Records")
+    long records;
+
+    @Label("Records per Second")
+    double recordsPerSecond;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Peak Heap")
+    @DataAmount
+    long peakHeap;
+}
@@ -0,0 +1,401 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Non-visual class that measures the stages of a run:
+ * download, md5, decompress, ClinVar parse, genome parse, pair compare and write.
+ * Per stage the wall time, the bytes and records processed, the allocation and the peak heap are kept.
+ * Every measurement is also committed as a StageEvent for the Java Flight Recorder,
+ * and at the end of the run a summary per stage is written as JSON and CSV.
+ * <p>
+ * The allocation is counted for the whole heap: the bytes freed by garbage collections during the stage
+ * plus the change in used heap. So it includes the worker threads of a stage,
+ * and of any other stage that runs at the same time.
+ * The peak heap is the highest used heap seen before a garbage collection or at the start or end of the stage.
+ */
+public class StageMetrics {
+
+    public enum Stage {
+        DOWNLOAD("download"), MD5("md5"), DECOMPRESS("decompress"), CLINVAR_PARSE("clinvar parse"),
+        GENOME_PARSE("genome parse"), PAIR_COMPARE("pair compare"), WRITE("write");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final Set<String> HEAP_POOLS = new HashSet<>();
+    private static final AtomicLong COLLECTED = new AtomicLong();
+    private static final Set<Measurement> OPEN = ConcurrentHashMap.newKeySet();
+
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                HEAP_POOLS.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                        collected((CompositeData) notification.getUserData());
+                    }
+                }, null, null);
+            }
+        }
+    }
+
+    private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+    private volatile String criticalPath;
+    private volatile long totalNanos;
+
+    /**
+     * Starts measuring a stage. Close the measurement when the stage ends.
+     *
+     * @param stage - Stage - The stage.
+     * @return Measurement - The running measurement.
+     */
+    public Measurement start(Stage stage) {
+        return new Measurement(stage);
+    }
+
+    /**
+     * Measures a piece of work that has no bytes or records of its own to count, as part of a stage.
+     *
+     * @param stage - Stage - The stage.
+     * @param work  - Supplier<T> - The work.
+     * @return T - The result of the work.
+     */
+    public <T> T measure(Stage stage, Supplier<T> work) {
+        Measurement measurement = start(stage);
+        try {
+            return work.get();
+        } finally {
+            measurement.close();
+        }
+    }
+
+    /**
+     * Adds a stage that was measured in another way, for example a part of a stage that does several things at once.
+     * A StageEvent is committed for it.
+     *
+     * @param stage     - Stage - The stage.
+     * @param wallNanos - long - The wall time in nanoseconds.
+     * @param bytes     - long - The number of bytes processed.
+     * @param records   - long - The number of records processed.
+     * @param allocated - long - The number of bytes allocated.
+     * @param peakHeap  - long - The peak used heap in bytes.
+     */
+    public void record(Stage stage, long wallNanos, long bytes, long records, long allocated, long peakHeap) {
+
+        Result result = new Result(stage, wallNanos, bytes, records, allocated, peakHeap);
+        results.add(result);
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = stage.getLabel();
+            event.wallTime = wallNanos;
+            event.bytes = bytes;
+            event.records = records;
+            event.recordsPerSecond = result.getRecordsPerSecond();
+            event.allocated = allocated;
+            event.peakHeap = peakHeap;
+            event.commit();
+        }
+    }
+
+    /**
+     * Sets the critical path of a run whose stages overlap, written with the summary in the JSON file.
+     *
+     * @param path       - String - The stages that ended last, for example "clinvar -> compare".
+     * @param totalNanos - long - The wall time of the whole run in nanoseconds.
+     */
+    public void record_critical_path(String path, long totalNanos) {
+        this.totalNanos = totalNanos;
+        this.criticalPath = path;
+    }
+
+    /**
+     * Returns the measurements added together per stage, in the order of the stages.
+     * Stages that weren't measured are left out.
+     *
+     * @return List<Result> - The summary.
+     */
+    public List<Result> summary() {
+
+        Map<Stage, Result> summary = new EnumMap<>(Stage.class);
+        synchronized (results) {
+            for (Result result : results) {
+                summary.merge(result.stage, result, Result::plus);
+            }
+        }
+        return new ArrayList<>(summary.values());
+    }
+
+    /**
+     * Writes the summary as a JSON file.
+     *
+     * @param file - File - The file.
+     * @throws IOException - When the file can't be written.
+     */
+    public void write_json(File file) throws IOException {
+
+        StringBuilder json = new StringBuilder("{\n  \"stages\": [");
+        String separator = "\n";
+        for (Result result : summary()) {
+            json.append(separator).append(String.format(Locale.ROOT,
+                    "    {\"stage\": \"%s\", \"wall_ms\": %.3f, \"bytes\": %d, \"records\": %d, " +
+                            "\"records_per_second\": %.1f, \"allocated_bytes\": %d, \"peak_heap_bytes\": %d}",
+                    result.stage.getLabel(), result.wallNanos / 1e6, result.bytes, result.records,
+                    result.getRecordsPerSecond(), result.allocated, result.peakHeap));
+            separator = ",\n";
+        }
+        json.append("\n  ]");
+        if (criticalPath != null) {
+            json.append(String.format(Locale.ROOT, ",\n  \"critical_path\": \"%s\",\n  \"total_ms\": %.3f",
+                    criticalPath, totalNanos / 1e6));
+        }
+        json.append("\n}\n");
+        write(file, json.toString());
+    }
+
+    /**
+     * Writes the summary as a CSV file, with a header.
+     *
+     * @param file - File - The file.
+     * @throws IOException - When the file can't be written.
+     */
+    public void write_csv(File file) throws IOException {
+
+        StringBuilder csv = new StringBuilder("stage,wall_ms,bytes,records,records_per_second,allocated_bytes,peak_heap_bytes\n");
+        for (Result result : summary()) {
+            csv.append(String.format(Locale.ROOT, "%s,%.3f,%d,%d,%.1f,%d,%d%n",
+                    result.stage.getLabel(), result.wallNanos / 1e6, result.bytes, result.records,
+                    result.getRecordsPerSecond(), result.allocated, result.peakHeap));
+        }
+        write(file, csv.toString());
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(content);
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated on the heap since the start of the JVM,
+     * as far as the garbage collections reported so far can tell.
+     *
+     * @return long - The number of bytes.
+     */
+    static long allocated() {
+        return COLLECTED.get() + heap_used();
+    }
+
+    private static long heap_used() {
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long heap_used(Map<String, MemoryUsage> pools) {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : pools.entrySet()) {
+            if (HEAP_POOLS.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Adds the bytes freed by a garbage collection, and updates the peak heap of the running measurements.
+     *
+     * @param data - CompositeData - The data of the garbage collection notification.
+     */
+    private static void collected(CompositeData data) {
+
+        GcInfo info = GarbageCollectionNotificationInfo.from(data).getGcInfo();
+        long before = heap_used(info.getMemoryUsageBeforeGc());
+        COLLECTED.addAndGet(Math.max(0, before - heap_used(info.getMemoryUsageAfterGc())));
+        for (Measurement measurement : OPEN) {
+            measurement.peak(before);
+        }
+    }
+
+    /**
+     * The measurement of one stage, from start() until close().
+     */
+    public class Measurement implements AutoCloseable {
+
+        private final Stage stage;
+        private final long startNanos;
+        private final long startAllocated;
+        private final AtomicLong peakHeap;
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong records = new AtomicLong();
+        private long excludedNanos;
+        private boolean closed;
+
+        private Measurement(Stage stage) {
+            this.stage = stage;
+            this.peakHeap = new AtomicLong(heap_used());
+            this.startAllocated = allocated();
+            OPEN.add(this);
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds processed data to the measurement, can be called from any thread.
+         *
+         * @param bytes   - long - The number of bytes.
+         * @param records - long - The number of records.
+         */
+        public void add(long bytes, long records) {
+            this.bytes.addAndGet(bytes);
+            this.records.addAndGet(records);
+        }
+
+        /**
+         * Subtracts time from the wall time that is reported as another stage,
+         * for a stage that does several things at once.
+         *
+         * @param nanos - long - The time in nanoseconds.
+         */
+        public void exclude(long nanos) {
+            excludedNanos += nanos;
+        }
+
+        private void peak(long heap) {
+            peakHeap.accumulateAndGet(heap, Math::max);
+        }
+
+        /**
+         * Ends the measurement and adds it to the StageMetrics. Calling it again does nothing.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long wallNanos = System.nanoTime() - startNanos - excludedNanos;
+            OPEN.remove(this);
+            peak(heap_used());
+            record(stage, wallNanos, bytes.get(), records.get(), Math.max(0, allocated() - startAllocated), peakHeap.get());
+        }
+    }
+
+    /**
+     * The numbers of a stage.
+     */
+    public static class Result {
+
+        private final Stage stage;
+        private final long wallNanos;
+        private final long bytes;
+        private final long records;
+        private final long allocated;
+        private final long peakHeap;
+
+        Result(Stage stage, long wallNanos, long bytes, long records, long allocated, long peakHeap) {
+            this.stage = stage;
+            this.wallNanos = wallNanos;
+            this.bytes = bytes;
+            this.records = records;
+            this.allocated = allocated;
+            this.peakHeap = peakHeap;
+        }
+
+        private Result plus(Result other) {
+            return new Result(stage, wallNanos + other.wallNanos, bytes + other.bytes, records + other.records,
+                    allocated + other.allocated, Math.max(peakHeap, other.peakHeap));
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getAllocated() {
+            return allocated;
+        }
+
+        public long getPeakHeap() {
+            return peakHeap;
+        }
+
+        public double getRecordsPerSecond() {
+            return wallNanos == 0 ? 0 : records * 1e9 / wallNanos;
+        }
+    }
+
+    /**
+     * Stream that counts the bytes read through it and the time spent in read(), including the streams below it.
+     * Used to split a stage that reads, decompresses and parses at the same time into its parts.
+     */
+    public static class TimedInputStream extends FilterInputStream {
+
+        private long nanos;
+        private long bytes;
+
+        public TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int read = super.read();
+            nanos += System.nanoTime() - start;
+            if (read >= 0) {
+                bytes++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(buffer, offset, length);
+            nanos += System.nanoTime() - start;
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Non-visual class that reads a tab separated file line by line, directly from a byte buffer.
+ * A line is not turned into a String and split, only the start and end of the fields are remembered.
+ * Numbers are parsed from the bytes, a String is only created for a field when getString() is called.
+ * Fields after the maximum number of fields are not looked at.
+ */
+public class TsvTokenizer implements Closeable {
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private int fieldCount;
+
+    /**
+     * Constructor for a TsvTokenizer object.
+     *
+     * @param in        - InputStream - The stream to read, it is read in large blocks so it doesn't need to be buffered.
+     * @param maxFields - int - The number of fields at the start of a line that are needed.
+     */
+    public TsvTokenizer(InputStream in, int maxFields) {
+        this.in = in;
+        this.buffer = new byte[1 << 16];
+        this.fieldStarts = new int[maxFields];
+        this.fieldEnds = new int[maxFields];
+    }
+
+    /**
+     * Reads the next line and finds the fields in it.
+     *
+     * @return boolean - false when there are no more lines.
+     * @throws IOException - When the stream can't be read.
+     */
+    public boolean next_line() throws IOException {
+
+        int lineEnd = find_line_end();
+        if (lineEnd < 0) {
+            return false;
+        }
+        int lineStart = position;
+        position = lineEnd < limit ? lineEnd + 1 : lineEnd;
+        if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+
+        fieldCount = 0;
+        int start = lineStart;
+        while (fieldCount < fieldStarts.length) {
+            int end = start;
+            while (end < lineEnd && buffer[end] != '\t') {
+                end++;
+            }
+            fieldStarts[fieldCount] = start;
+            fieldEnds[fieldCount] = end;
+            fieldCount++;
+            if (end == lineEnd) {
+                break;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of the current line, reading more of the stream when the line isn't complete in the buffer.
+     *
+     * @return int - The index of the newline, the end of the buffer for a last line without a newline,
+     * or -1 when there are no more lines.
+     * @throws IOException - When the stream can't be read.
+     */
+    private int find_line_end() throws IOException {
+
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buffer[scan] == '\n') {
+                    return scan;
+                }
+            }
+            if (endOfStream) {
+                return position < limit ? limit : -1;
+            }
+            // Move the start of the line to the front of the buffer, and make the buffer bigger if the line fills it.
+            int remaining = limit - position;
+            if (position == 0 && remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            scan -= position;
+            position = 0;
+            limit = remaining;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfStream = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of fields found on the current line, at most the maximum number of fields.
+     *
+     * @return int - The number of fields.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the length of a field in bytes.
+     *
+     * @param field - int - The index of the field.
+     * @return int - The length.
+     */
+    public int length(int field) {
+        check(field);
+        return fieldEnds[field] - fieldStarts[field];
+    }
+
+    /**
+     * Checks whether a field starts with the given characters.
+     *
+     * @param field  - int - The index of the field.
+     * @param prefix - String - The characters, only ASCII.
+     * @return boolean - true if the field starts with the prefix.
+     */
+    public boolean startsWith(int field, String prefix) {
+        check(field);
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a byte of a field.
+     *
+     * @param field  - int - The index of the field.
+     * @param offset - int - The index of the byte in the field.
+     * @return byte - The byte.
+     */
+    public byte byteAt(int field, int offset) {
+        check(field);
+        if (offset >= fieldEnds[field] - fieldStarts[field]) {
+            throw new IndexOutOfBoundsException("Field " + field + " has no byte " + offset);
+        }
+        return buffer[fieldStarts[field] + offset];
+    }
+
+    /**
+     * Parses a field as an int, without creating a String.
+     *
+     * @param field - int - The index of the field.
+     * @return int - The number.
+     * @throws NumberFormatException - When the field isn't a number.
+     */
+    public int getInt(int field) {
+        long value = getLong(field, 0);
+        if (value != (int) value) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a long, without creating a String.
+     *
+     * @param field - int - The index of the field.
+     * @return long - The number.
+     * @throws NumberFormatException - When the field isn't a number.
+     */
+    public long getLong(int field) {
+        return getLong(field, 0);
+    }
+
+    /**
+     * Parses a part of a field as a long, without creating a String.
+     *
+     * @param field  - int - The index of the field.
+     * @param offset - int - The number of bytes to skip at the start of the field, like the "rs" of an RS ID.
+     * @return long - The number.
+     * @throws NumberFormatException - When the field isn't a number.
+     */
+    public long getLong(int field, int offset) {
+        check(field);
+        int start = fieldStarts[field] + offset;
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer[start] == '-';
+        if (negative) {
+            start++;
+        }
+        if (start >= end || end - start > 18) {
+            throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Creates a String of a field.
+     *
+     * @param field - int - The index of the field.
+     * @return String - The field.
+     */
+    public String getString(int field) {
+        return getString(field, 0);
+    }
+
+    /**
+     * Creates a String of a part of a field.
+     *
+     * @param field  - int - The index of the field.
+     * @param offset - int - The number of bytes to skip at the start of the field.
+     * @return String - The field without the skipped bytes.
+     */
+    public String getString(int field, int offset) {
+        check(field);
+        int start = Math.min(fieldStarts[field] + offset, fieldEnds[field]);
+        return new String(buffer, start, fieldEnds[field] - start, StandardCharsets.UTF_8);
+    }
+
+    private void check(int field) {
+        if (field >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException("Index " + field + " out of bounds for length " + fieldCount);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ClinvarSource for a directory on a server, like the tab_delimited directory of the NCBI ClinVar FTP site.
+ * Over HTTP(S) the size is asked with a HEAD request and a download is resumed with a Range request.
+ * When the server doesn't support ranges, or for FTP, the skipped bytes are downloaded and thrown away.
+ */
+public class UrlClinvarSource implements ClinvarSource {
+
+    private static final int TIMEOUT = 30000;
+
+    private final URL gzipUrl;
+    private final URL md5Url;
+
+    /**
+     * Constructor for a UrlClinvarSource object.
+     *
+     * @param directory - String - The URL of the directory with variant_summary.txt.gz, ending with a slash.
+     * @throws IOException - When the URL isn't valid.
+     */
+    public UrlClinvarSource(String directory) throws IOException {
+        URL base = new URL(directory.endsWith("/") ? directory : directory + "/");
+        this.gzipUrl = new URL(base, "variant_summary.txt.gz");
+        this.md5Url = new URL(base, "variant_summary.txt.gz.md5");
+    }
+
+    @Override
+    public String read_md5() throws IOException {
+        try (InputStream in = connect(md5Url).getInputStream()) {
+            String line = new String(in.readNBytes(1 << 12), StandardCharsets.UTF_8).trim();
+            if (line.isEmpty()) {
+                throw new IOException(md5Url + " is empty.");
+            }
+            return line.split("\\s+")[0];
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        URLConnection connection = connect(gzipUrl);
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            http.setRequestMethod("HEAD");
+            try {
+                return http.getResponseCode() == HttpURLConnection.HTTP_OK ? http.getContentLengthLong() : -1;
+            } finally {
+                http.disconnect();
+            }
+        }
+        // Other protocols only tell the size when the file is opened.
+        long size = connection.getContentLengthLong();
+        connection.getInputStream().close();
+        return size;
+    }
+
+    @Override
+    public InputStream open(long offset) throws IOException {
+
+        URLConnection connection = connect(gzipUrl);
+        if (offset > 0 && connection instanceof HttpURLConnection) {
+            connection.setRequestProperty("Range", "bytes=" + offset + "-");
+            int status = ((HttpURLConnection) connection).getResponseCode();
+            if (status == HttpURLConnection.HTTP_PARTIAL) {
+                return connection.getInputStream();
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException(gzipUrl + " returned HTTP " + status);
+            }
+        }
+        InputStream in = connection.getInputStream();
+        if (offset > 0) {
+            in.skipNBytes(offset);
+        }
+        return in;
+    }
+
+    private static URLConnection connect(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        return connection;
+    }
+}
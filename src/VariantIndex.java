@@ -0,0 +1,536 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class to store all Variant SNPs of the variant_summary file, indexed by RS ID.
+ * The RS IDs are kept in an open addressing hash table of primitive longs,
+ * the fields of the variants are kept in one primitive array per column.
+ * Strings that are repeated a lot (type, chromosome, disease and the alleles) are stored once
+ * in a dictionary and referred to by a code.
+ * Looking up a variant doesn't create any objects.
+ * After sort_by_coordinate() the rows are in karyotype order of chromosome and then by position,
+ * so the rows of one chromosome are next to each other.
+ */
+public class VariantIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] keys;
+    private int[] keyRows;
+    private int mask;
+
+    private int size;
+    private long[] rsIds;
+    private int[] alleleIds;
+    private int[] types;
+    private int[] positions;
+    private byte[] pathogenicities;
+    private int[] geneIds;
+    private int[] alternateAlleles;
+    private int[] diseases;
+    private int[] referenceAlleles;
+    private int[] chromosomes;
+
+    private final Dictionary typeDictionary = new Dictionary();
+    private final Dictionary alleleDictionary = new Dictionary();
+    private final Dictionary diseaseDictionary = new Dictionary();
+    private final Dictionary chromosomeDictionary = new Dictionary();
+    private volatile byte[] chromosomeCodes = new byte[0];
+    private volatile int[] chromosomeStarts;
+    private volatile CoordinateIndex coordinateIndex;
+    private boolean sortedByCoordinate;
+
+    /**
+     * Constructor for an empty VariantIndex object.
+     */
+    public VariantIndex() {
+        keys = new long[INITIAL_CAPACITY * 2];
+        Arrays.fill(keys, EMPTY);
+        keyRows = new int[INITIAL_CAPACITY * 2];
+        mask = keys.length - 1;
+        resize_columns(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a variant to the index.
+     * A pathogenic variant replaces a variant with the same RS ID,
+     * a nonpathogenic or uncertain variant is only added when the RS ID isn't present yet.
+     * Variants with any other pathogenicity, or without an RS ID, are skipped.
+     *
+     * @param rsId            - long - The RS ID of the variant, -1 if the variant has none.
+     * @param alleleId        - int - The Allele ID of the Variant SNP.
+     * @param type            - String - What type of SNP.
+     * @param position        - int - The position on the chromosome that the SNP is located.
+     * @param pathogenicity   - int - 1 for pathogenic, 0 for nonpathogenic or uncertain.
+     * @param geneId          - int - The ID of the gene that the SNP is located on.
+     * @param alternateAllele - String - The alternate allele that is causing the SNP
+     * @param disease         - String - The disease that the SNP is causing
+     * @param referenceAllele - String - The allele found on the same position in the reference genome
+     * @param chromosome      - String - The chromosome the SNP is located on.
+     */
+    public void add(long rsId, int alleleId, String type, int position, int pathogenicity, int geneId,
+                    String alternateAllele, String disease, String referenceAllele, String chromosome) {
+
+        if (rsId < 0 || (pathogenicity != 1 && pathogenicity != 0)) {
+            return;
+        }
+        int slot = slot(rsId);
+        int row;
+        if (keys[slot] == rsId) {
+            if (pathogenicity != 1) {
+                return;
+            }
+            row = keyRows[slot];
+        } else {
+            row = size++;
+            if (row == rsIds.length) {
+                resize_columns(Math.max(INITIAL_CAPACITY, rsIds.length * 2));
+            }
+            keys[slot] = rsId;
+            keyRows[slot] = row;
+            if (size * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+        }
+        rsIds[row] = rsId;
+        alleleIds[row] = alleleId;
+        types[row] = typeDictionary.encode(type);
+        positions[row] = position;
+        pathogenicities[row] = (byte) pathogenicity;
+        geneIds[row] = geneId;
+        alternateAlleles[row] = alleleDictionary.encode(alternateAllele);
+        diseases[row] = diseaseDictionary.encode(disease);
+        referenceAlleles[row] = alleleDictionary.encode(referenceAllele);
+        chromosomes[row] = chromosomeDictionary.encode(chromosome);
+        chromosomeStarts = null;
+        coordinateIndex = null;
+        sortedByCoordinate = false;
+    }
+
+    /**
+     * Looks up the row of a variant.
+     *
+     * @param rsId - long - The RS ID of the variant.
+     * @return int - The row of the variant, or NOT_FOUND if the RS ID isn't in the index.
+     */
+    public int indexOf(long rsId) {
+        if (rsId < 0) {
+            return NOT_FOUND;
+        }
+        int slot = slot(rsId);
+        return keys[slot] == rsId ? keyRows[slot] : NOT_FOUND;
+    }
+
+    /**
+     * Checks whether a variant with the given RS ID is in the index.
+     *
+     * @param rsId - long - The RS ID of the variant.
+     * @return boolean - true if the RS ID is in the index.
+     */
+    public boolean containsKey(long rsId) {
+        return indexOf(rsId) != NOT_FOUND;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getRsId(int row) {
+        return rsIds[row];
+    }
+
+    public int getAlleleId(int row) {
+        return alleleIds[row];
+    }
+
+    public String getType(int row) {
+        return typeDictionary.decode(types[row]);
+    }
+
+    public int getPosition(int row) {
+        return positions[row];
+    }
+
+    public int getPathogenicity(int row) {
+        return pathogenicities[row];
+    }
+
+    public int getGeneId(int row) {
+        return geneIds[row];
+    }
+
+    public String getAlternateAllele(int row) {
+        return alleleDictionary.decode(alternateAlleles[row]);
+    }
+
+    public String getDisease(int row) {
+        return diseaseDictionary.decode(diseases[row]);
+    }
+
+    public String getReferenceAllele(int row) {
+        return alleleDictionary.decode(referenceAlleles[row]);
+    }
+
+    public String getChromosome(int row) {
+        return chromosomeDictionary.decode(chromosomes[row]);
+    }
+
+    /**
+     * Returns the chromosome of a variant as a code, see Chromosome.
+     *
+     * @param row - int - The row of the variant.
+     * @return byte - The chromosome code.
+     */
+    public byte getChromosomeCode(int row) {
+        int code = chromosomes[row];
+        byte[] codes = chromosomeCodes;
+        if (code >= codes.length) {
+            codes = chromosome_codes();
+            chromosomeCodes = codes;
+        }
+        return codes[code];
+    }
+
+    /**
+     * Translates every chromosome in the dictionary to its code.
+     *
+     * @return byte[] - The chromosome codes, indexed by dictionary code.
+     */
+    private byte[] chromosome_codes() {
+        byte[] codes = new byte[chromosomeDictionary.values.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = Chromosome.code(chromosomeDictionary.decode(i));
+        }
+        return codes;
+    }
+
+    /**
+     * Sorts the rows by chromosome in karyotype order, then by position and then by RS ID.
+     * Rows with an unknown chromosome come first. The RS ID lookup keeps working on the new rows.
+     * The chromosome codes, the first row of every chromosome and the coordinate index are built here too,
+     * so the threads that project genomes on the index only read them.
+     */
+    public void sort_by_coordinate() {
+
+        chromosomeCodes = chromosome_codes();
+        int[] order = coordinate_order();
+
+        int[] newRows = new int[size];
+        for (int row = 0; row < size; row++) {
+            newRows[order[row]] = row;
+        }
+        rsIds = permute(rsIds, order);
+        alleleIds = permute(alleleIds, order);
+        types = permute(types, order);
+        positions = permute(positions, order);
+        geneIds = permute(geneIds, order);
+        alternateAlleles = permute(alternateAlleles, order);
+        diseases = permute(diseases, order);
+        referenceAlleles = permute(referenceAlleles, order);
+        chromosomes = permute(chromosomes, order);
+        byte[] sortedPathogenicities = new byte[size];
+        for (int row = 0; row < size; row++) {
+            sortedPathogenicities[row] = pathogenicities[order[row]];
+        }
+        pathogenicities = sortedPathogenicities;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                keyRows[slot] = newRows[keyRows[slot]];
+            }
+        }
+        sortedByCoordinate = true;
+        chromosomeStarts = chromosome_starts();
+        coordinateIndex = new CoordinateIndex(this);
+    }
+
+    /**
+     * Returns the rows in the order of sort_by_coordinate(), without boxing the rows.
+     * The RS IDs are unique, so a row is replaced by the rank of its RS ID. Per chromosome the position and
+     * that rank are packed in one long, like in CoordinateIndex, so a primitive sort orders by position and RS ID.
+     *
+     * @return int[] - The rows in coordinate order.
+     */
+    private int[] coordinate_order() {
+
+        long[] sortedRsIds = Arrays.copyOf(rsIds, size);
+        Arrays.sort(sortedRsIds);
+        int[] rowOfRank = new int[size];
+        int[] counts = new int[Chromosome.COUNT];
+        for (int row = 0; row < size; row++) {
+            rowOfRank[Arrays.binarySearch(sortedRsIds, rsIds[row])] = row;
+            counts[getChromosomeCode(row)]++;
+        }
+        long[][] keys = new long[Chromosome.COUNT][];
+        for (int code = 0; code < Chromosome.COUNT; code++) {
+            keys[code] = new long[counts[code]];
+            counts[code] = 0;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            int row = rowOfRank[rank];
+            byte code = getChromosomeCode(row);
+            keys[code][counts[code]++] = (long) positions[row] << 32 | rank;
+        }
+        int[] order = new int[size];
+        int next = 0;
+        for (int code = 0; code < Chromosome.COUNT; code++) {
+            Arrays.sort(keys[code]);
+            for (long key : keys[code]) {
+                order[next++] = rowOfRank[(int) key];
+            }
+        }
+        return order;
+    }
+
+    public boolean isSortedByCoordinate() {
+        return sortedByCoordinate;
+    }
+
+    private long[] permute(long[] column, int[] order) {
+        long[] sorted = new long[size];
+        for (int row = 0; row < size; row++) {
+            sorted[row] = column[order[row]];
+        }
+        return sorted;
+    }
+
+    private int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[size];
+        for (int row = 0; row < size; row++) {
+            sorted[row] = column[order[row]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the first row of a chromosome. Only valid when the index is sorted by coordinate.
+     * The rows of the chromosome are firstRow(code) up to firstRow(code + 1).
+     *
+     * @param chromosome - int - The chromosome code, up to Chromosome.COUNT.
+     * @return int - The first row of the chromosome.
+     */
+    public int firstRow(int chromosome) {
+        int[] starts = chromosomeStarts;
+        if (starts == null) {
+            starts = chromosome_starts();
+            chromosomeStarts = starts;
+        }
+        return starts[chromosome];
+    }
+
+    private int[] chromosome_starts() {
+        int[] starts = new int[Chromosome.COUNT + 1];
+        int row = 0;
+        for (int code = 0; code <= Chromosome.COUNT; code++) {
+            while (row < size && getChromosomeCode(row) < code) {
+                row++;
+            }
+            starts[code] = row;
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the index of the variants by chromosome and position.
+     * It is built by sort_by_coordinate() and read_from(), for an index that was changed afterwards
+     * it is built again when it is first needed.
+     *
+     * @return CoordinateIndex - The coordinate index.
+     */
+    public CoordinateIndex coordinateIndex() {
+        CoordinateIndex coordinates = coordinateIndex;
+        if (coordinates == null) {
+            coordinates = new CoordinateIndex(this);
+            coordinateIndex = coordinates;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Writes the hash table, the columns and the dictionaries of the index.
+     * The format is read back by read_from().
+     *
+     * @param out - DataOutputStream - The stream to write the index to.
+     * @throws IOException - When the index can't be written.
+     */
+    public void write_to(DataOutputStream out) throws IOException {
+
+        out.writeInt(size);
+        out.writeInt(keys.length);
+        out.writeBoolean(sortedByCoordinate);
+        for (Dictionary dictionary : new Dictionary[]{typeDictionary, alleleDictionary, diseaseDictionary, chromosomeDictionary}) {
+            dictionary.write_to(out);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            out.writeLong(keys[i]);
+        }
+        for (int i = 0; i < keyRows.length; i++) {
+            out.writeInt(keyRows[i]);
+        }
+        for (int row = 0; row < size; row++) {
+            out.writeLong(rsIds[row]);
+        }
+        for (int[] column : new int[][]{alleleIds, types, positions, geneIds, alternateAlleles, diseases, referenceAlleles, chromosomes}) {
+            for (int row = 0; row < size; row++) {
+                out.writeInt(column[row]);
+            }
+        }
+        out.write(pathogenicities, 0, size);
+    }
+
+    /**
+     * Reads an index that was written by write_to().
+     * The primitive columns are copied from the buffer in bulk, nothing needs to be parsed or rehashed.
+     *
+     * @param buffer - ByteBuffer - Buffer positioned at the start of the index, usually a memory-mapped file.
+     * @return VariantIndex - The index.
+     * @throws IllegalArgumentException - When the sizes of the index don't fit in a hash table.
+     * @throws java.nio.BufferUnderflowException - When the buffer ends before the index.
+     */
+    public static VariantIndex read_from(ByteBuffer buffer) {
+
+        VariantIndex index = new VariantIndex();
+        index.size = buffer.getInt();
+        int capacity = buffer.getInt();
+        if (index.size < 0 || capacity < INITIAL_CAPACITY || Integer.bitCount(capacity) != 1 || index.size * 2L > capacity) {
+            throw new IllegalArgumentException("Invalid VariantIndex size " + index.size + " and capacity " + capacity);
+        }
+        index.sortedByCoordinate = buffer.get() != 0;
+        for (Dictionary dictionary : new Dictionary[]{index.typeDictionary, index.alleleDictionary, index.diseaseDictionary, index.chromosomeDictionary}) {
+            dictionary.read_from(buffer);
+        }
+        index.keys = new long[capacity];
+        buffer.asLongBuffer().get(index.keys);
+        buffer.position(buffer.position() + capacity * Long.BYTES);
+        index.keyRows = new int[capacity];
+        buffer.asIntBuffer().get(index.keyRows);
+        buffer.position(buffer.position() + capacity * Integer.BYTES);
+        index.mask = capacity - 1;
+
+        int size = index.size;
+        index.rsIds = new long[size];
+        buffer.asLongBuffer().get(index.rsIds);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        int[][] columns = new int[8][];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new int[size];
+            buffer.asIntBuffer().get(columns[i]);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+        }
+        index.alleleIds = columns[0];
+        index.types = columns[1];
+        index.positions = columns[2];
+        index.geneIds = columns[3];
+        index.alternateAlleles = columns[4];
+        index.diseases = columns[5];
+        index.referenceAlleles = columns[6];
+        index.chromosomes = columns[7];
+        index.pathogenicities = new byte[size];
+        buffer.get(index.pathogenicities);
+        // Built here for the same reason as in sort_by_coordinate().
+        index.chromosomeCodes = index.chromosome_codes();
+        if (index.sortedByCoordinate) {
+            index.chromosomeStarts = index.chromosome_starts();
+        }
+        index.coordinateIndex = new CoordinateIndex(index);
+        return index;
+    }
+
+    /**
+     * Finds the slot of an RS ID in the hash table, using linear probing.
+     *
+     * @param rsId - long - The RS ID.
+     * @return int - The slot that holds the RS ID, or the empty slot where it should be placed.
+     */
+    private int slot(long rsId) {
+        int slot = (int) mix(rsId) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != rsId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldRows = keyRows;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        keyRows = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                keyRows[slot] = oldRows[i];
+            }
+        }
+    }
+
+    private void resize_columns(int capacity) {
+        rsIds = rsIds == null ? new long[capacity] : Arrays.copyOf(rsIds, capacity);
+        alleleIds = alleleIds == null ? new int[capacity] : Arrays.copyOf(alleleIds, capacity);
+        types = types == null ? new int[capacity] : Arrays.copyOf(types, capacity);
+        positions = positions == null ? new int[capacity] : Arrays.copyOf(positions, capacity);
+        pathogenicities = pathogenicities == null ? new byte[capacity] : Arrays.copyOf(pathogenicities, capacity);
+        geneIds = geneIds == null ? new int[capacity] : Arrays.copyOf(geneIds, capacity);
+        alternateAlleles = alternateAlleles == null ? new int[capacity] : Arrays.copyOf(alternateAlleles, capacity);
+        diseases = diseases == null ? new int[capacity] : Arrays.copyOf(diseases, capacity);
+        referenceAlleles = referenceAlleles == null ? new int[capacity] : Arrays.copyOf(referenceAlleles, capacity);
+        chromosomes = chromosomes == null ? new int[capacity] : Arrays.copyOf(chromosomes, capacity);
+    }
+
+    /**
+     * Stores every distinct String once and gives it a code.
+     */
+    private static class Dictionary {
+
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        void write_to(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        void read_from(ByteBuffer buffer) {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                encode(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Class to store the differences between two releases of the VariantIndex.
+ * An RS ID is changed when it was added or removed, or when the pathogenicity, the alternate allele,
+ * the chromosome or the position of the variant is different.
+ * Only pathogenic SNPs of changed RS IDs can be different after screening with the new release.
+ * Because a SNP is also matched to the variants on its coordinate, the variants that share a chromosome and
+ * position with a changed variant, in the previous or the new release, are treated as changed too.
+ */
+public class VariantIndexDiff {
+
+    private static final long NO_COORDINATE = -1;
+
+    private final long[] changedRsIds;
+    private final int added;
+    private final int removed;
+    private final int changed;
+    private final long[] mask;
+    private final int[] maskWords;
+
+    private VariantIndexDiff(long[] changedRsIds, int added, int removed, int changed, long[] mask) {
+        this.changedRsIds = changedRsIds;
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+        this.mask = mask;
+        this.maskWords = IntStream.range(0, mask.length).filter(word -> mask[word] != 0).toArray();
+    }
+
+    /**
+     * Compares two releases of the index.
+     *
+     * @param previous - VariantIndex - The index of the previous release.
+     * @param current  - VariantIndex - The index of the new release.
+     * @return VariantIndexDiff - The changed RS IDs, and a mask with the rows of the new index that changed,
+     * including the rows on the coordinate of a changed variant.
+     */
+    public static VariantIndexDiff compare(VariantIndex previous, VariantIndex current) {
+
+        long[] changedRsIds = new long[16];
+        int count = 0;
+        int added = 0;
+        int removed = 0;
+        int changed = 0;
+        long[] mask = new long[(current.size() + 63) >>> 6];
+        long[] coordinates = new long[16];
+        int coordinateCount = 0;
+
+        for (int row = 0; row < current.size(); row++) {
+            long rsId = current.getRsId(row);
+            int previousRow = previous.indexOf(rsId);
+            if (previousRow == VariantIndex.NOT_FOUND) {
+                added++;
+            } else if (is_changed(previous, previousRow, current, row)) {
+                changed++;
+            } else {
+                continue;
+            }
+            if (count == changedRsIds.length) {
+                changedRsIds = Arrays.copyOf(changedRsIds, count * 2);
+            }
+            changedRsIds[count++] = rsId;
+            mask[row >>> 6] |= 1L << row;
+            if (coordinateCount + 2 > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[coordinateCount++] = coordinate(current, row);
+            if (previousRow != VariantIndex.NOT_FOUND) {
+                coordinates[coordinateCount++] = coordinate(previous, previousRow);
+            }
+        }
+        for (int row = 0; row < previous.size(); row++) {
+            long rsId = previous.getRsId(row);
+            if (!current.containsKey(rsId)) {
+                removed++;
+                if (count == changedRsIds.length) {
+                    changedRsIds = Arrays.copyOf(changedRsIds, count * 2);
+                }
+                changedRsIds[count++] = rsId;
+                if (coordinateCount == coordinates.length) {
+                    coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+                }
+                coordinates[coordinateCount++] = coordinate(previous, row);
+            }
+        }
+
+        // The unchanged variants on the coordinate of a changed variant can be matched by other SNPs now.
+        coordinates = Arrays.copyOf(coordinates, coordinateCount);
+        Arrays.sort(coordinates);
+        for (int row = 0; row < current.size(); row++) {
+            long coordinate = coordinate(current, row);
+            if ((mask[row >>> 6] & (1L << row)) == 0 && coordinate != NO_COORDINATE
+                    && Arrays.binarySearch(coordinates, coordinate) >= 0) {
+                if (count == changedRsIds.length) {
+                    changedRsIds = Arrays.copyOf(changedRsIds, count * 2);
+                }
+                changedRsIds[count++] = current.getRsId(row);
+                mask[row >>> 6] |= 1L << row;
+            }
+        }
+        changedRsIds = Arrays.copyOf(changedRsIds, count);
+        Arrays.sort(changedRsIds);
+        return new VariantIndexDiff(changedRsIds, added, removed, changed, mask);
+    }
+
+    /**
+     * Packs the chromosome code and the position of a variant in one long.
+     *
+     * @param index - VariantIndex - The index.
+     * @param row   - int - The row of the variant.
+     * @return long - The coordinate, or NO_COORDINATE on an unknown chromosome, which is never matched by coordinate.
+     */
+    private static long coordinate(VariantIndex index, int row) {
+        byte chromosome = index.getChromosomeCode(row);
+        return chromosome == Chromosome.UNKNOWN ? NO_COORDINATE : (long) chromosome << 32 | (index.getPosition(row) & 0xFFFFFFFFL);
+    }
+
+    private static boolean is_changed(VariantIndex previous, int previousRow, VariantIndex current, int row) {
+        return previous.getPathogenicity(previousRow) != current.getPathogenicity(row)
+                || previous.getPosition(previousRow) != current.getPosition(row)
+                || !previous.getAlternateAllele(previousRow).equals(current.getAlternateAllele(row))
+                || !previous.getChromosome(previousRow).equals(current.getChromosome(row));
+    }
+
+    /**
+     * Checks whether an RS ID was added, removed or changed, or shares a coordinate with one that was.
+     *
+     * @param rsId - long - The RS ID.
+     * @return boolean - true if the RS ID changed.
+     */
+    public boolean isChanged(long rsId) {
+        return Arrays.binarySearch(changedRsIds, rsId) >= 0;
+    }
+
+    public int size() {
+        return changedRsIds.length;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the rows of the new index that were added or changed, or share a coordinate with a changed variant.
+     * One bit per row.
+     *
+     * @return long[] - The mask.
+     */
+    public long[] getMask() {
+        return mask;
+    }
+
+    /**
+     * Returns the words of the mask that have at least one bit set.
+     *
+     * @return int[] - The indexes of the words.
+     */
+    public int[] getMaskWords() {
+        return maskWords;
+    }
+
+    @Override
+    public String toString() {
+        return "added: " + added + ", removed: " + removed + ", changed: " + changed;
+    }
+}
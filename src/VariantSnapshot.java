@@ -0,0 +1,82 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Non-visual class that saves a VariantIndex to a binary snapshot file and reads it back.
+ * The snapshot is named after the md5sum of the variant_summary gzip file it was built from and the assembly
+ * of the variants in it, so a snapshot is only used for the exact same ClinVar release and assembly.
+ * Reading a snapshot memory-maps the file instead of parsing the variant_summary file again.
+ */
+public class VariantSnapshot {
+
+    private static final int MAGIC = 0x534E5053;
+    private static final int VERSION = 2;
+
+    private final File file;
+
+    /**
+     * Constructor for a VariantSnapshot object.
+     *
+     * @param directory - File - The directory the snapshot is stored in.
+     * @param md5       - String - The md5sum of the variant_summary gzip file.
+     * @param assembly  - String - The assembly the variants were selected for, like GRCh37.
+     */
+    public VariantSnapshot(File directory, String md5, String assembly) {
+        this.file = new File(directory, "variant_summary." + md5 + "." + assembly + ".snapshot");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Writes the index to the snapshot file.
+     * The index is first written to a temporary file which is then moved in place,
+     * so a job that runs at the same time never sees a half written snapshot.
+     *
+     * @param index - VariantIndex - The index to save.
+     * @throws IOException - When the snapshot can't be written.
+     */
+    public void write_snapshot(VariantIndex index) throws IOException {
+
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            index.write_to(out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory-maps the snapshot file and reads the index from it.
+     *
+     * @return VariantIndex - The index stored in the snapshot.
+     * @throws IOException - When the snapshot can't be read, isn't a snapshot file, or is truncated or corrupt.
+     */
+    public VariantIndex read_snapshot() throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a variant_summary snapshot.");
+            }
+            VariantIndex index = VariantIndex.read_from(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IOException(file + " has " + buffer.remaining() + " bytes after the index.");
+            }
+            return index;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException(file + " is truncated or corrupt.", e);
+        }
+    }
+}
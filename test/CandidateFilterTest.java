@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CandidateFilter, dropping SNPs with the filter must never change the pathogenic SNPs that are found.
+ */
+class CandidateFilterTest {
+
+    @TempDir
+    File directory;
+
+    /**
+     * Writes a genome as an OpenHuman file, with "rs" for an RS ID and "i" for an internal ID.
+     * SNPs that match no variant of CarrierSetTest.random_index() are added, those are the ones the filter drops.
+     */
+    private File write_OpenHumanSNPFile(Genome genome, Random random) throws IOException {
+        StringBuilder text = new StringBuilder("# rsid\tchromosome\tposition\tgenotype\n");
+        for (int i = 0; i < genome.size(); i++) {
+            long rsId = genome.getRsId(i);
+            text.append(rsId > 0 ? "rs" + rsId : "i" + -rsId).append('\t')
+                    .append(Chromosome.name(genome.getChromosome(i))).append('\t')
+                    .append(genome.getPosition(i)).append('\t')
+                    .append(Genotype.decode(genome.getGenotype(i))).append('\n');
+        }
+        for (int i = 0; i < 200; i++) {
+            text.append("rs").append(9_000_000 + i).append('\t').append(1 + random.nextInt(3)).append('\t')
+                    .append(100 * random.nextInt(1_000) + 1).append("\tAG\n");
+        }
+        File file = new File(directory, genome.getParentId() + ".23andme.txt");
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void has_no_false_negatives() {
+        Random random = new Random(21);
+        for (int round = 0; round < 10; round++) {
+            VariantIndex index = CarrierSetTest.random_index(random, 2_000);
+            CandidateFilter filter = CandidateFilter.build(index);
+            for (int row = 0; row < index.size(); row++) {
+                if (index.getPathogenicity(row) == 1) {
+                    assertTrue(filter.mightMatch(index.getRsId(row), index.getChromosomeCode(row), index.getPosition(row)));
+                    assertTrue(filter.mightMatch(index.getRsId(row), Chromosome.UNKNOWN, 0));
+                    assertTrue(filter.mightMatch(-1, index.getChromosomeCode(row), index.getPosition(row)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void screening_with_the_filter_equals_screening_without_it() throws IOException {
+        Random random = new Random(8);
+        for (int round = 0; round < 10; round++) {
+            VariantIndex index = CarrierSetTest.random_index(random, 400);
+            CandidateFilter filter = CandidateFilter.build(index);
+            GenomeLoader loader = new GenomeLoader(1);
+            List<Genome> all = new ArrayList<>();
+            List<Genome> filtered = new ArrayList<>();
+            int kept = 0;
+            int read = 0;
+            for (int i = 0; i < 4; i++) {
+                File file = write_OpenHumanSNPFile(CarrierSetTest.random_genome(random, index, "user" + round + "_" + i), random);
+                all.add(loader.read_OpenHumanSNPFile(file, null));
+                filtered.add(loader.read_OpenHumanSNPFile(file, filter));
+                read += all.get(i).size();
+                kept += filtered.get(i).size();
+            }
+
+            assertTrue(kept < read);
+            Set<String> screened = CarrierSetTest.screen_all(all, index, CarrierSet::project);
+            assertFalse(screened.isEmpty());
+            assertEquals(screened, CarrierSetTest.screen_all(filtered, index, CarrierSet::project));
+            assertEquals(CarrierSetTest.screen_all(all, index, CarrierSet::project_by_coordinate),
+                    CarrierSetTest.screen_all(filtered, index, CarrierSet::project_by_coordinate));
+        }
+    }
+}
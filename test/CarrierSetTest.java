@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CarrierSet, the hash-join by RS ID must find the same SNPs as the merge-join by coordinate.
+ */
+class CarrierSetTest {
+
+    private static final String[] GENOTYPES = {"AA", "AG", "GG", "CT", "G", "--", "DI"};
+
+    /**
+     * Creates an index with variants on a few coordinates, so several variants share a coordinate.
+     */
+    static VariantIndex random_index(Random random, int variants) {
+        VariantIndex index = new VariantIndex();
+        for (int i = 0; i < variants; i++) {
+            VariantIndexTest.add(index, 1 + random.nextInt(variants * 2), String.valueOf(1 + random.nextInt(3)),
+                    100 * (1 + random.nextInt(variants / 2)), random.nextInt(3) == 0 ? 0 : 1,
+                    random.nextBoolean() ? "G" : "T");
+        }
+        index.sort_by_coordinate();
+        return index;
+    }
+
+    /**
+     * Creates a genome with SNPs on the coordinates of the index, with the same RS ID, another RS ID or an internal ID.
+     */
+    static Genome random_genome(Random random, VariantIndex index, String parentId) {
+        Genome.Builder genome = new Genome.Builder(parentId);
+        for (int row = 0; row < index.size(); row++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            int kind = random.nextInt(4);
+            long rsId = kind == 0 ? -(1 + random.nextInt(1000)) : kind == 1 ? 1 + random.nextInt(index.size() * 2) : index.getRsId(row);
+            genome.add(rsId, index.getChromosomeCode(row), index.getPosition(row),
+                    Genotype.encode(GENOTYPES[random.nextInt(GENOTYPES.length)]));
+        }
+        return genome.build();
+    }
+
+    static Genome genome(String parentId, Object... snps) {
+        Genome.Builder genome = new Genome.Builder(parentId);
+        for (int i = 0; i < snps.length; i += 4) {
+            genome.add(((Number) snps[i]).longValue(), Chromosome.code((String) snps[i + 1]), (Integer) snps[i + 2],
+                    Genotype.encode((String) snps[i + 3]));
+        }
+        return genome.build();
+    }
+
+    /**
+     * Screens every pair of genomes like PairScreening does.
+     *
+     * @return Set<String> - The output rows, with the fields joined by tabs.
+     */
+    static Set<String> screen_all(List<Genome> genomes, VariantIndex index, BiFunction<Genome, VariantIndex, CarrierSet> project) {
+        List<CarrierSet> sets = new ArrayList<>();
+        for (Genome genome : genomes) {
+            sets.add(project.apply(genome, index));
+        }
+        Set<String> rows = new TreeSet<>();
+        for (int i = 0; i < sets.size(); i++) {
+            for (int j = i + 1; j < sets.size(); j++) {
+                for (String[] row : sets.get(i).screen(sets.get(j))) {
+                    rows.add(String.join("\t", row));
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void hash_join_equals_merge_join() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            VariantIndex index = random_index(random, 400);
+            List<Genome> genomes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                genomes.add(random_genome(random, index, "user" + i));
+            }
+            Set<String> merge = screen_all(genomes, index, CarrierSet::project_by_coordinate);
+            assertFalse(merge.isEmpty());
+            assertEquals(merge, screen_all(genomes, index, CarrierSet::project));
+        }
+    }
+
+    @Test
+    void row_ranges_cover_the_whole_index() {
+        Random random = new Random(7);
+        VariantIndex index = random_index(random, 300);
+        Genome genome = random_genome(random, index, "user1");
+        CarrierSet whole = CarrierSet.project(genome, index);
+        for (int code = 0; code < Chromosome.COUNT; code++) {
+            int first = index.firstRow(code);
+            int end = index.firstRow(code + 1);
+            CarrierSet part = CarrierSet.project(genome, index, first, end);
+            CarrierSet merged = CarrierSet.project_by_coordinate(genome, index, first, end);
+            for (int row = first; row < end; row++) {
+                assertEquals(whole.isCalled(row), part.isCalled(row));
+                assertEquals(whole.carries(row), part.carries(row));
+                assertEquals(part.isCalled(row), merged.isCalled(row));
+            }
+        }
+    }
+
+    @Test
+    void matches_other_variants_on_the_coordinate_of_a_nonpathogenic_rs_id() {
+        VariantIndex index = new VariantIndex();
+        VariantIndexTest.add(index, 100, "1", 1000, 1, "G");
+        VariantIndexTest.add(index, 200, "1", 1000, 0, "G");
+        VariantIndexTest.add(index, 300, "1", 2000, 1, "G");
+        VariantIndexTest.add(index, 301, "1", 2000, 1, "T");
+        index.sort_by_coordinate();
+        List<Genome> genomes = List.of(
+                genome("user1", 200, "1", 1000, "AG", 300, "1", 2000, "GT"),
+                genome("user2", 200, "1", 1000, "GG", 300, "1", 2000, "AA"));
+
+        Set<String> merge = screen_all(genomes, index, CarrierSet::project_by_coordinate);
+        assertEquals(Set.of("100\tGG\t1\tAG\tGG\tuser1\tuser2", "300\tGT\t1\tGT\tAA\tuser1\tuser2",
+                "301\tGT\t1\tGT\tAA\tuser1\tuser2"), merge);
+        assertEquals(merge, screen_all(genomes, index, CarrierSet::project));
+    }
+
+    @Test
+    void matches_internal_ids_by_coordinate() {
+        VariantIndex index = new VariantIndex();
+        VariantIndexTest.add(index, 100, "1", 1000, 1, "G");
+        index.sort_by_coordinate();
+        Genome parent1 = genome("user1", -5, "1", 1000, "AG");
+        Genome parent2 = genome("user2", 100, "1", 1000, "AA");
+
+        List<String[]> rows = CarrierSet.project(parent1, index).screen(CarrierSet.project(parent2, index));
+        assertEquals(1, rows.size());
+        assertArrayEquals(new String[]{"100", "AG", "1", "AG", "AA", "user1", "user2"}, rows.get(0));
+    }
+}
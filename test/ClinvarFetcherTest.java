@@ -0,0 +1,207 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ClinvarFetcher, with a stub source that serves a release from memory.
+ */
+class ClinvarFetcherTest {
+
+    @TempDir
+    File directory;
+
+    private byte[] release;
+    private String releaseMd5;
+    private File gzipFile;
+    private File md5File;
+
+    /**
+     * Serves a release from memory. A download can be made to break after a number of bytes,
+     * or to serve wrong bytes, and opening at the end of the file fails like a server answering 416.
+     */
+    static class StubSource implements ClinvarSource {
+
+        final List<Long> opened = new ArrayList<>();
+        byte[] data;
+        String md5;
+        int breakAfter = -1;
+        int corruptDownloads;
+
+        StubSource(byte[] data, String md5) {
+            this.data = data;
+            this.md5 = md5;
+        }
+
+        @Override
+        public String read_md5() {
+            return md5;
+        }
+
+        @Override
+        public long size() {
+            return data.length;
+        }
+
+        @Override
+        public InputStream open(long offset) throws IOException {
+            opened.add(offset);
+            if (offset >= data.length) {
+                throw new IOException("Server returned HTTP response code: 416");
+            }
+            byte[] served = Arrays.copyOfRange(data, (int) offset, data.length);
+            if (corruptDownloads > 0) {
+                corruptDownloads--;
+                served[served.length - 1] ^= 1;
+            }
+            int limit = breakAfter;
+            breakAfter = -1;
+            return new FilterInputStream(new ByteArrayInputStream(served)) {
+                private int read;
+
+                @Override
+                public int read(byte[] buffer, int off, int length) throws IOException {
+                    if (limit >= 0 && read >= limit) {
+                        throw new IOException("Connection reset");
+                    }
+                    int count = super.read(buffer, off, limit >= 0 ? Math.min(length, limit - read) : length);
+                    read += Math.max(count, 0);
+                    return count;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void create_release() {
+        release = new byte[300_000];
+        new Random(11).nextBytes(release);
+        releaseMd5 = md5(release);
+        gzipFile = new File(directory, "variant_summary.txt.gz");
+        md5File = new File(directory, "variant_summary.txt.gz.md5");
+    }
+
+    private static String md5(byte[] data) {
+        return Md5.to_hex(Md5.create().digest(data));
+    }
+
+    private File part_file() {
+        return new File(directory, "variant_summary.txt.gz." + releaseMd5 + ".part");
+    }
+
+    @Test
+    void downloads_a_new_release_and_skips_it_when_unchanged() throws IOException {
+        StubSource source = new StubSource(release, releaseMd5);
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+        assertTrue(fetcher.fetch());
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+        assertEquals(releaseMd5, fetcher.getMd5());
+        assertEquals(release.length, fetcher.getTransferred());
+        assertTrue(Files.readString(md5File.toPath()).startsWith(releaseMd5 + "  variant_summary.txt.gz"));
+
+        ClinvarFetcher again = new ClinvarFetcher(source, gzipFile, md5File);
+        assertFalse(again.fetch());
+        assertEquals(releaseMd5, again.getMd5());
+        assertEquals(0, again.getTransferred());
+        assertEquals(List.of(0L), source.opened);
+    }
+
+    @Test
+    void downloads_a_changed_release() throws IOException {
+        StubSource source = new StubSource(release, releaseMd5);
+        new ClinvarFetcher(source, gzipFile, md5File).fetch();
+
+        byte[] next = Arrays.copyOf(release, release.length + 10);
+        source.data = next;
+        source.md5 = md5(next);
+        assertTrue(new ClinvarFetcher(source, gzipFile, md5File).fetch());
+        assertArrayEquals(next, Files.readAllBytes(gzipFile.toPath()));
+    }
+
+    @Test
+    void resumes_from_a_partial_part_file() throws IOException {
+        Files.write(part_file().toPath(), Arrays.copyOf(release, 100_000));
+        StubSource source = new StubSource(release, releaseMd5);
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+
+        assertTrue(fetcher.fetch());
+        assertEquals(List.of(100_000L), source.opened);
+        assertEquals(release.length - 100_000, fetcher.getTransferred());
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+        assertFalse(part_file().exists());
+    }
+
+    @Test
+    void resumes_a_broken_download() throws IOException {
+        StubSource source = new StubSource(release, releaseMd5);
+        source.breakAfter = 50_000;
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+
+        assertTrue(fetcher.fetch());
+        assertEquals(2, source.opened.size());
+        assertEquals(0L, source.opened.get(0));
+        assertTrue(source.opened.get(1) > 0);
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+    }
+
+    @Test
+    void moves_a_complete_part_file_without_opening_the_source() throws IOException {
+        Files.write(part_file().toPath(), release);
+        StubSource source = new StubSource(release, releaseMd5);
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+
+        assertTrue(fetcher.fetch());
+        assertTrue(source.opened.isEmpty());
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+        assertEquals(releaseMd5, fetcher.getMd5());
+    }
+
+    @Test
+    void downloads_again_when_the_md5sum_does_not_match() throws IOException {
+        StubSource source = new StubSource(release, releaseMd5);
+        source.corruptDownloads = 1;
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+
+        assertTrue(fetcher.fetch());
+        assertEquals(List.of(0L, 0L), source.opened);
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+    }
+
+    @Test
+    void fails_when_the_md5sum_never_matches() {
+        StubSource source = new StubSource(release, releaseMd5);
+        source.corruptDownloads = Integer.MAX_VALUE;
+        ClinvarFetcher fetcher = new ClinvarFetcher(source, gzipFile, md5File);
+
+        assertThrows(IOException.class, fetcher::fetch);
+        assertFalse(gzipFile.exists());
+        assertFalse(md5File.exists());
+        assertFalse(part_file().exists());
+    }
+
+    @Test
+    void local_source_reads_the_md5_file_and_opens_at_an_offset() throws IOException {
+        File mirror = new File(directory, "mirror");
+        assertTrue(mirror.mkdir());
+        Files.write(new File(mirror, "variant_summary.txt.gz").toPath(), release);
+        Files.writeString(new File(mirror, "variant_summary.txt.gz.md5").toPath(), releaseMd5 + "  variant_summary.txt.gz\n");
+        LocalClinvarSource source = new LocalClinvarSource(mirror);
+
+        assertEquals(releaseMd5, source.read_md5());
+        assertEquals(release.length, source.size());
+        try (InputStream in = source.open(1000)) {
+            assertArrayEquals(Arrays.copyOfRange(release, 1000, release.length), in.readAllBytes());
+        }
+        assertTrue(new ClinvarFetcher(source, gzipFile, md5File).fetch());
+        assertArrayEquals(release, Files.readAllBytes(gzipFile.toPath()));
+        assertEquals(-1, new LocalClinvarSource(new File(directory, "empty")).size());
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GenomeStore.
+ */
+class GenomeStoreTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void reads_back_the_written_genome() throws IOException {
+        Genome.Builder builder = new Genome.Builder("user12");
+        builder.add(30, (byte) 2, 500, Genotype.encode("AG"));
+        builder.add(-1000001, (byte) 1, 100, Genotype.encode("CC"));
+        builder.add(10, Chromosome.UNKNOWN, 0, Genotype.encode("--"));
+        builder.add(20, Chromosome.X, 900, Genotype.encode("T"));
+        Genome genome = builder.build();
+
+        GenomeStore store = new GenomeStore(new File(directory, "store"));
+        File file = new File(directory, "store/user12.genome");
+        store.write_genome(genome, file);
+        Genome read = store.read_genome(file);
+
+        assertEquals("user12", read.getParentId());
+        assertEquals(genome.size(), read.size());
+        for (int i = 0; i < genome.size(); i++) {
+            assertEquals(genome.getRsId(i), read.getRsId(i));
+            assertEquals(genome.getChromosome(i), read.getChromosome(i));
+            assertEquals(genome.getPosition(i), read.getPosition(i));
+            assertEquals(genome.getGenotype(i), read.getGenotype(i));
+        }
+        assertEquals(genome.coordinateOrder(), read.coordinateOrder());
+        assertEquals(genome.find(30, (byte) 2, 500), read.find(30, (byte) 2, 500));
+    }
+
+    @Test
+    void parses_the_text_file_once() throws IOException {
+        File text = new File(directory, "user7.23andme.txt");
+        Files.write(text.toPath(), "# rsid\tchromosome\tposition\tgenotype\nrs5\t1\t10\tAG\ni6\tMT\t20\tA\n"
+                .getBytes(StandardCharsets.UTF_8));
+        GenomeStore store = new GenomeStore(new File(directory, "store"));
+        assertFalse(store.is_current(text));
+
+        Genome parsed = store.load(text, new GenomeLoader(1));
+        assertTrue(store.is_current(text));
+        Genome stored = store.load(text, new GenomeLoader(1));
+        assertEquals("user7", stored.getParentId());
+        assertEquals(parsed.size(), stored.size());
+        assertEquals(2, stored.size());
+        assertEquals("AG", Genotype.decode(stored.getGenotype(stored.indexOf(5))));
+        assertEquals(Chromosome.MT, stored.getChromosome(stored.indexOf(-6)));
+    }
+
+    @Test
+    void rejects_a_file_that_is_not_a_genome() throws IOException {
+        File file = new File(directory, "other.genome");
+        Files.write(file.toPath(), new byte[64]);
+        assertThrows(IOException.class, () -> new GenomeStore(directory).read_genome(file));
+    }
+
+    @Test
+    void rejects_a_truncated_genome_file() throws IOException {
+        File text = new File(directory, "user8.23andme.txt");
+        Files.write(text.toPath(), "rs5\t1\t10\tAG\nrs6\t2\t20\tCC\nrs7\tX\t30\tT\n".getBytes(StandardCharsets.UTF_8));
+        GenomeStore store = new GenomeStore(new File(directory, "store"));
+        store.load(text, new GenomeLoader(1));
+        File file = store.file_for(text);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        for (int length : new int[]{0, 6, 12, 20, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> store.read_genome(file), "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void parses_the_text_file_again_when_the_genome_file_is_truncated() throws IOException {
+        File text = new File(directory, "user9.23andme.txt");
+        Files.write(text.toPath(), "rs5\t1\t10\tAG\nrs6\t2\t20\tCC\n".getBytes(StandardCharsets.UTF_8));
+        GenomeStore store = new GenomeStore(new File(directory, "store"));
+        store.load(text, new GenomeLoader(1));
+        File file = store.file_for(text);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+        assertTrue(store.is_current(text));
+
+        Genome genome = store.load(text, new GenomeLoader(1));
+        assertEquals(2, genome.size());
+        assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+        assertEquals(2, store.read_genome(file).size());
+    }
+
+    @Test
+    void reads_a_truncated_partition_from_the_text_file() throws IOException {
+        File openHuman = new File(directory, "OpenHuman");
+        assertTrue(openHuman.mkdir());
+        File text = new File(openHuman, "user3.23andme.txt");
+        Files.write(text.toPath(), "rs5\t1\t10\tAG\nrs6\t1\t20\tCC\nrs7\t2\t30\tT\n".getBytes(StandardCharsets.UTF_8));
+        GenomePartitions partitions = new GenomePartitions(new File(directory, "partitions"));
+        List<File> files = partitions.spill_all(openHuman, 1);
+        assertEquals(List.of(text), files);
+        File file = new File(directory, "partitions/1/" + text.getName() + ".genome");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        List<Genome> genomes = partitions.read_partition(Chromosome.code("1"), files);
+        assertEquals(2, genomes.get(0).size());
+        assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+    }
+}
@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the orders of a Genome, by RS ID and by coordinate.
+ */
+class GenomeTest {
+
+    private static final String[] GENOTYPES = {"AA", "AG", "GG", "CT"};
+
+    @Test
+    void sorts_by_rs_id_and_keeps_the_first_duplicate() {
+        for (long range : new long[]{1_000, Long.MAX_VALUE}) {
+            Random random = new Random(9);
+            Genome.Builder builder = new Genome.Builder("user1");
+            Map<Long, Integer> first = new HashMap<>();
+            for (int i = 0; i < 3_000; i++) {
+                long rsId = random.nextLong(range) - range / 2;
+                builder.add(rsId, (byte) 1, i, Genotype.encode(GENOTYPES[i % GENOTYPES.length]));
+                first.putIfAbsent(rsId, i);
+            }
+            Genome genome = builder.build();
+
+            assertEquals(first.size(), genome.size());
+            for (int i = 1; i < genome.size(); i++) {
+                assertTrue(genome.getRsId(i - 1) < genome.getRsId(i));
+            }
+            for (Map.Entry<Long, Integer> snp : first.entrySet()) {
+                assertEquals((int) snp.getValue(), genome.getPosition(genome.indexOf(snp.getKey())));
+            }
+        }
+    }
+
+    @Test
+    void coordinate_order_skips_unknown_chromosomes() {
+        Random random = new Random(4);
+        Genome.Builder builder = new Genome.Builder("user1");
+        for (int i = 0; i < 3_000; i++) {
+            builder.add(i, (byte) random.nextInt(Chromosome.COUNT), random.nextInt(500),
+                    Genotype.encode(GENOTYPES[i % GENOTYPES.length]));
+        }
+        Genome genome = builder.build();
+        IntBuffer order = genome.coordinateOrder();
+
+        int unknown = 0;
+        for (int i = 0; i < genome.size(); i++) {
+            if (genome.getChromosome(i) == Chromosome.UNKNOWN) {
+                unknown++;
+            }
+        }
+        assertEquals(genome.size() - unknown, order.limit());
+        for (int i = 1; i < order.limit(); i++) {
+            int previous = order.get(i - 1);
+            int compare = genome.compare_coordinate(previous, genome.getChromosome(order.get(i)), genome.getPosition(order.get(i)));
+            assertTrue(compare < 0 || compare == 0 && previous < order.get(i));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for Genotype.
+ */
+class GenotypeTest {
+
+    @Test
+    void packs_and_unpacks_every_genotype() {
+        String bases = "ACGT";
+        for (char first : bases.toCharArray()) {
+            assertEquals(String.valueOf(first), Genotype.decode(Genotype.encode(String.valueOf(first))));
+            for (char second : bases.toCharArray()) {
+                String genotype = new String(new char[]{first, second});
+                assertEquals(genotype, Genotype.decode(Genotype.encode(genotype)));
+            }
+        }
+        for (String genotype : new String[]{"D", "I", "DD", "DI", "ID", "II"}) {
+            assertEquals(genotype, Genotype.decode(Genotype.encode(genotype)));
+        }
+        assertEquals("--", Genotype.decode(Genotype.encode("--")));
+        assertEquals("--", Genotype.decode(Genotype.encode("")));
+        assertEquals("--", Genotype.decode(Genotype.encode("AGT")));
+        assertEquals("-", Genotype.decode(Genotype.encode("-")));
+    }
+
+    @Test
+    void packs_the_same_from_a_tokenizer() throws IOException {
+        String[] genotypes = {"AG", "T", "DI", "--", "N", ""};
+        StringBuilder text = new StringBuilder();
+        for (String genotype : genotypes) {
+            text.append("rs1\t").append(genotype).append('\n');
+        }
+        try (TsvTokenizer row = new TsvTokenizer(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)), 2)) {
+            for (String genotype : genotypes) {
+                assertTrue(row.next_line());
+                assertEquals(Genotype.encode(genotype), Genotype.encode(row, 1));
+            }
+        }
+    }
+
+    @Test
+    void carries_only_base_alleles() {
+        int g = Genotype.allele_code("G");
+        assertTrue(Genotype.carries(Genotype.encode("AG"), g));
+        assertTrue(Genotype.carries(Genotype.encode("GA"), g));
+        assertTrue(Genotype.carries(Genotype.encode("G"), g));
+        assertFalse(Genotype.carries(Genotype.encode("AA"), g));
+        assertFalse(Genotype.carries(Genotype.encode("A"), g));
+        assertFalse(Genotype.carries(Genotype.encode("--"), g));
+        assertFalse(Genotype.carries(Genotype.encode("DI"), Genotype.allele_code("A")));
+        assertEquals(-1, Genotype.allele_code("AT"));
+        assertFalse(Genotype.carries(Genotype.encode("AT"), Genotype.allele_code("AT")));
+    }
+}
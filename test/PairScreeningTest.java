@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PairScreening, however the pairs are split over tasks every pair must be compared exactly once.
+ */
+class PairScreeningTest {
+
+    private static final int[] SIZES = {0, 1, 2, 3, 5, 17, 64};
+    private static final int[] PARALLELISMS = {1, 2, 3, 7, 64};
+
+    private static List<Integer> genomes(int n) {
+        return IntStream.range(0, n).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that the compared pairs are exactly the pairs (i, j) with i < j, each once.
+     */
+    private static void assertEveryPairOnce(int n, Map<String, AtomicInteger> compared) {
+        assertEquals((long) n * (n - 1) / 2, compared.size(), n + " genomes");
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                AtomicInteger count = compared.get(i + "," + j);
+                assertNotNull(count, "pair " + i + "," + j + " of " + n + " genomes is missed");
+                assertEquals(1, count.get(), "pair " + i + "," + j + " of " + n + " genomes is repeated");
+            }
+        }
+    }
+
+    @Test
+    void screens_every_pair_once_in_pair_order() {
+        for (int n : SIZES) {
+            for (int parallelism : PARALLELISMS) {
+                Map<String, AtomicInteger> compared = new ConcurrentHashMap<>();
+                PairScreening<Integer> screening = new PairScreening<>(genomes(n), (a, b) -> {
+                    compared.computeIfAbsent(a + "," + b, pair -> new AtomicInteger()).incrementAndGet();
+                    return Collections.singletonList(new String[]{String.valueOf(a), String.valueOf(b)});
+                });
+
+                List<String[]> results = screening.screen(parallelism);
+                assertEquals(screening.pairs(), results.size());
+                assertEveryPairOnce(n, compared);
+                List<String[]> expected = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        expected.add(new String[]{String.valueOf(i), String.valueOf(j)});
+                    }
+                }
+                for (int pair = 0; pair < expected.size(); pair++) {
+                    assertArrayEquals(expected.get(pair), results.get(pair));
+                }
+            }
+        }
+    }
+
+    @Test
+    void hands_every_pair_once_to_the_sink() {
+        for (int n : SIZES) {
+            for (int parallelism : PARALLELISMS) {
+                Map<String, AtomicInteger> compared = new ConcurrentHashMap<>();
+                new PairScreening<>(genomes(n), (Integer a, Integer b) -> Collections.singletonList(new String[]{a + "," + b}))
+                        .screen(parallelism, snp -> compared.computeIfAbsent(snp[0], pair -> new AtomicInteger()).incrementAndGet());
+                assertEveryPairOnce(n, compared);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ResultSink, every format must read back with read_all() what was written, also after appending.
+ */
+class ResultSinkTest {
+
+    @TempDir
+    File directory;
+
+    private static List<String[]> snps(int first, int count) {
+        List<String[]> snps = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            snps.add(new String[]{String.valueOf(i), "AG", String.valueOf(1 + i % 22), "AG", "GG", "user" + i, "ü" + i});
+        }
+        return snps;
+    }
+
+    private static long write(File file, List<String[]> snps) throws IOException {
+        ResultSink sink = new ResultSink(file, ResultSink.format_for(file), 16);
+        try (sink) {
+            snps.forEach(sink);
+        }
+        return sink.getWritten();
+    }
+
+    private static List<String[]> read(File file) throws IOException {
+        List<String[]> snps = new ArrayList<>();
+        ResultSink.read_all(file, snps::add);
+        return snps;
+    }
+
+    private static void assertSnpsEqual(List<String[]> expected, List<String[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void chooses_the_format_from_the_file_name() {
+        assertEquals(ResultSink.Format.TSV, ResultSink.format_for(new File("Pathogenic_SNPs.tsv")));
+        assertEquals(ResultSink.Format.TSV_GZIP, ResultSink.format_for(new File("Pathogenic_SNPs.tsv.gz")));
+        assertEquals(ResultSink.Format.BINARY, ResultSink.format_for(new File("Pathogenic_SNPs.bin")));
+    }
+
+    @Test
+    void reads_back_every_format() throws IOException {
+        List<String[]> snps = snps(0, 1000);
+        for (String name : new String[]{"out.tsv", "out.tsv.gz", "out.bin"}) {
+            File file = new File(directory, name);
+            assertEquals(1000, write(file, snps));
+            assertSnpsEqual(snps, read(file));
+        }
+    }
+
+    @Test
+    void writes_the_header_once_when_appending() throws IOException {
+        File file = new File(directory, "out.tsv");
+        write(file, snps(0, 3));
+        write(file, snps(3, 2));
+
+        String text = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        assertTrue(text.startsWith(ResultSink.HEADER));
+        assertEquals(text.indexOf("RS ID"), text.lastIndexOf("RS ID"));
+        assertSnpsEqual(snps(0, 5), read(file));
+    }
+
+    @Test
+    void appends_a_gzip_member() throws IOException {
+        File file = new File(directory, "out.tsv.gz");
+        write(file, snps(0, 300));
+        long length = file.length();
+        write(file, snps(300, 200));
+
+        assertTrue(file.length() > length);
+        assertSnpsEqual(snps(0, 500), read(file));
+    }
+
+    @Test
+    void appends_to_a_binary_file_without_a_second_magic_number() throws IOException {
+        File file = new File(directory, "out.bin");
+        write(file, snps(0, 10));
+        write(file, snps(10, 10));
+
+        assertSnpsEqual(snps(0, 20), read(file));
+    }
+
+    @Test
+    void does_not_create_the_file_without_snps() throws IOException {
+        File file = new File(directory, "out.tsv");
+        assertEquals(0, write(file, List.of()));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void reports_an_unchecked_error_of_the_writer_on_close() {
+        File file = new File(directory, "out.tsv");
+        List<String[]> snps = snps(0, 100);
+        snps.add(new String[]{"1", null});
+
+        IOException failure = assertThrows(IOException.class, () -> write(file, snps));
+        assertInstanceOf(NullPointerException.class, failure.getCause());
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reading the variant_summary file in SNPinder.
+ */
+class SNPinderTest {
+
+    /**
+     * Creates a variant_summary row with the columns read_variants() looks at, the others are empty.
+     */
+    private static String row(long rsId, int pathogenicity, String assembly, String chromosome, int position) {
+        String[] fields = new String[40];
+        Arrays.fill(fields, "");
+        fields[0] = String.valueOf(rsId + 1);
+        fields[1] = "single nucleotide variant";
+        fields[3] = "100";
+        fields[7] = String.valueOf(pathogenicity);
+        fields[9] = String.valueOf(rsId);
+        fields[13] = "Disease";
+        fields[16] = assembly;
+        fields[18] = chromosome;
+        fields[31] = String.valueOf(position);
+        fields[32] = "A";
+        fields[33] = "G";
+        return String.join("\t", fields) + "\n";
+    }
+
+    @Test
+    void keeps_only_the_rows_of_grch37() throws IOException {
+        String file = "#AlleleID\tType\n"
+                + row(10, 1, "GRCh38", "1", 2000)
+                + row(10, 1, "GRCh37", "1", 1000)
+                + row(20, 1, "GRCh37", "2", 3000)
+                + row(20, 1, "GRCh38", "2", 4000)
+                + row(30, 1, "GRCh38", "3", 5000)
+                + row(40, 1, "NCBI36", "4", 6000)
+                + row(50, 0, "GRCh38", "5", 7000)
+                + row(50, 1, "GRCh37", "5", 8000);
+        SNPinder app = new SNPinder();
+        assertEquals(8, app.read_variants(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8))));
+
+        VariantIndex index = app.getPathoSNPs();
+        assertEquals(3, index.size());
+        assertEquals(1000, index.getPosition(index.indexOf(10)));
+        assertEquals(3000, index.getPosition(index.indexOf(20)));
+        assertEquals(8000, index.getPosition(index.indexOf(50)));
+        assertEquals(1, index.getPathogenicity(index.indexOf(50)));
+        assertEquals(-1, index.indexOf(30));
+        assertEquals(-1, index.indexOf(40));
+    }
+}
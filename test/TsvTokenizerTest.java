@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TsvTokenizer.
+ */
+class TsvTokenizerTest {
+
+    private static TsvTokenizer tokenizer(String text, int maxFields) {
+        return new TsvTokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), maxFields);
+    }
+
+    @Test
+    void reads_fields_and_numbers() throws IOException {
+        try (TsvTokenizer row = tokenizer("rs123\t1\t1000\tAG\n# comment\r\ni45\tX\t-7\t--", 4)) {
+            assertTrue(row.next_line());
+            assertEquals(4, row.fieldCount());
+            assertTrue(row.startsWith(0, "rs"));
+            assertEquals(123, row.getLong(0, 2));
+            assertEquals("1", row.getString(1));
+            assertEquals(1000, row.getInt(2));
+            assertEquals("AG", row.getString(3));
+
+            assertTrue(row.next_line());
+            assertEquals("# comment", row.getString(0));
+            assertEquals(1, row.fieldCount());
+
+            assertTrue(row.next_line());
+            assertEquals(45, row.getLong(0, 1));
+            assertEquals(-7, row.getInt(2));
+            assertEquals(2, row.length(3));
+            assertFalse(row.next_line());
+        }
+    }
+
+    @Test
+    void ignores_fields_after_the_maximum() throws IOException {
+        try (TsvTokenizer row = tokenizer("a\tb\tc\td\n", 2)) {
+            assertTrue(row.next_line());
+            assertEquals(2, row.fieldCount());
+            assertEquals("a", row.getString(0));
+            assertThrows(ArrayIndexOutOfBoundsException.class, () -> row.getString(2));
+        }
+    }
+
+    @Test
+    void reads_lines_longer_than_the_buffer() throws IOException {
+        String longField = "x".repeat(200_000);
+        try (TsvTokenizer row = tokenizer("1\t" + longField + "\n2\tshort\n", 2)) {
+            assertTrue(row.next_line());
+            assertEquals(longField.length(), row.length(1));
+            assertTrue(row.next_line());
+            assertEquals(2, row.getInt(0));
+            assertEquals("short", row.getString(1));
+        }
+    }
+
+    @Test
+    void rejects_fields_that_are_not_numbers() throws IOException {
+        try (TsvTokenizer row = tokenizer("rsABC\t99999999999\n", 2)) {
+            assertTrue(row.next_line());
+            assertThrows(NumberFormatException.class, () -> row.getLong(0, 2));
+            assertThrows(NumberFormatException.class, () -> row.getInt(1));
+        }
+    }
+}
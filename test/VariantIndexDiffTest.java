@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VariantIndexDiff, updating the output of the previous release like rescreen_OpenHumanSNPFiles()
+ * must give the same SNPs as screening all pairs with the new release.
+ */
+class VariantIndexDiffTest {
+
+    /**
+     * Keeps the rows of the previous output whose RS ID didn't change and adds the SNPs on the changed rows,
+     * the same way rescreen_OpenHumanSNPFiles() updates the output file.
+     */
+    static Set<String> rescreen(Set<String> previousOutput, VariantIndex previous, VariantIndex current, List<Genome> genomes) {
+        VariantIndexDiff diff = VariantIndexDiff.compare(previous, current);
+        Set<String> rows = new TreeSet<>();
+        for (String row : previousOutput) {
+            if (!diff.isChanged(Long.parseLong(row.substring(0, row.indexOf('\t'))))) {
+                rows.add(row);
+            }
+        }
+        List<CarrierSet> sets = new ArrayList<>();
+        for (Genome genome : genomes) {
+            sets.add(CarrierSet.project(genome, current));
+        }
+        for (int i = 0; i < sets.size(); i++) {
+            for (int j = i + 1; j < sets.size(); j++) {
+                for (String[] row : sets.get(i).screen(sets.get(j), diff)) {
+                    rows.add(String.join("\t", row));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Creates the next release: some variants are removed, some change and some are added.
+     */
+    static VariantIndex next_release(Random random, VariantIndex previous) {
+        VariantIndex current = new VariantIndex();
+        for (int row = 0; row < previous.size(); row++) {
+            int change = random.nextInt(20);
+            if (change == 0) {
+                continue;
+            }
+            int pathogenicity = change == 1 ? 1 - previous.getPathogenicity(row) : previous.getPathogenicity(row);
+            String alternateAllele = change == 2 ? "C" : previous.getAlternateAllele(row);
+            int position = change == 3 ? previous.getPosition(row) + 100 : previous.getPosition(row);
+            VariantIndexTest.add(current, previous.getRsId(row), previous.getChromosome(row), position, pathogenicity, alternateAllele);
+        }
+        for (int i = 0; i < previous.size() / 20; i++) {
+            int row = random.nextInt(previous.size());
+            VariantIndexTest.add(current, 1_000_000 + i, previous.getChromosome(row), previous.getPosition(row),
+                    random.nextInt(2), "G");
+        }
+        current.sort_by_coordinate();
+        return current;
+    }
+
+    @Test
+    void rescreen_equals_full_screen() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            VariantIndex previous = CarrierSetTest.random_index(random, 400);
+            List<Genome> genomes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                genomes.add(CarrierSetTest.random_genome(random, previous, "user" + i));
+            }
+            VariantIndex current = next_release(random, previous);
+            Set<String> previousOutput = CarrierSetTest.screen_all(genomes, previous, CarrierSet::project);
+
+            assertEquals(CarrierSetTest.screen_all(genomes, current, CarrierSet::project),
+                    rescreen(previousOutput, previous, current, genomes));
+        }
+    }
+
+    @Test
+    void rescreen_equals_full_screen_when_a_variant_is_added_on_a_used_coordinate() {
+        VariantIndex previous = new VariantIndex();
+        VariantIndexTest.add(previous, 100, "1", 1000, 1, "G");
+        VariantIndexTest.add(previous, 400, "1", 3000, 1, "G");
+        previous.sort_by_coordinate();
+        VariantIndex current = new VariantIndex();
+        VariantIndexTest.add(current, 100, "1", 1000, 1, "G");
+        VariantIndexTest.add(current, 200, "1", 1000, 0, "G");
+        VariantIndexTest.add(current, 400, "1", 3000, 1, "G");
+        current.sort_by_coordinate();
+        List<Genome> genomes = List.of(
+                CarrierSetTest.genome("user1", 200, "1", 1000, "AG", 400, "1", 3000, "AG"),
+                CarrierSetTest.genome("user2", 200, "1", 1000, "GG", 400, "1", 3000, "GG"));
+        Set<String> previousOutput = CarrierSetTest.screen_all(genomes, previous, CarrierSet::project);
+
+        VariantIndexDiff diff = VariantIndexDiff.compare(previous, current);
+        assertTrue(diff.isChanged(100));
+        assertFalse(diff.isChanged(400));
+        Set<String> full = CarrierSetTest.screen_all(genomes, current, CarrierSet::project);
+        assertEquals(2, full.size());
+        assertEquals(full, rescreen(previousOutput, previous, current, genomes));
+    }
+
+    @Test
+    void counts_the_changes() {
+        VariantIndex previous = new VariantIndex();
+        VariantIndexTest.add(previous, 1, "1", 100, 1, "G");
+        VariantIndexTest.add(previous, 2, "1", 200, 1, "G");
+        VariantIndexTest.add(previous, 3, "1", 300, 1, "G");
+        VariantIndex current = new VariantIndex();
+        VariantIndexTest.add(current, 1, "1", 100, 1, "G");
+        VariantIndexTest.add(current, 2, "1", 200, 1, "T");
+        VariantIndexTest.add(current, 4, "2", 400, 1, "G");
+
+        VariantIndexDiff diff = VariantIndexDiff.compare(previous, current);
+        assertEquals(1, diff.getAdded());
+        assertEquals(1, diff.getRemoved());
+        assertEquals(1, diff.getChanged());
+        assertFalse(diff.isChanged(1));
+        assertTrue(diff.isChanged(2));
+        assertTrue(diff.isChanged(3));
+        assertTrue(diff.isChanged(4));
+    }
+}
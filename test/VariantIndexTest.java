@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VariantIndex.
+ */
+class VariantIndexTest {
+
+    static void add(VariantIndex index, long rsId, String chromosome, int position, int pathogenicity, String alternateAllele) {
+        index.add(rsId, (int) rsId, "single nucleotide variant", position, pathogenicity, 1,
+                alternateAllele, "disease " + rsId, "A", chromosome);
+    }
+
+    @Test
+    void finds_every_added_rs_id() {
+        VariantIndex index = new VariantIndex();
+        Random random = new Random(1);
+        long[] rsIds = random.longs(10_000, 0, 1L << 40).distinct().toArray();
+        for (long rsId : rsIds) {
+            add(index, rsId, String.valueOf(1 + (int) (rsId % 22)), (int) (rsId % 100_000), (int) (rsId & 1), "G");
+        }
+        assertEquals(rsIds.length, index.size());
+        for (long rsId : rsIds) {
+            int row = index.indexOf(rsId);
+            assertNotEquals(VariantIndex.NOT_FOUND, row);
+            assertEquals(rsId, index.getRsId(row));
+            assertEquals((int) (rsId % 100_000), index.getPosition(row));
+            assertEquals("disease " + rsId, index.getDisease(row));
+        }
+        assertFalse(index.containsKey(1L << 41));
+        assertEquals(VariantIndex.NOT_FOUND, index.indexOf(-1));
+    }
+
+    @Test
+    void pathogenic_variant_replaces_the_rs_id() {
+        VariantIndex index = new VariantIndex();
+        add(index, 10, "1", 100, 0, "G");
+        add(index, 10, "1", 200, 1, "T");
+        add(index, 10, "1", 300, 0, "C");
+        add(index, 11, "1", 100, 5, "G");
+        add(index, -1, "1", 100, 1, "G");
+
+        assertEquals(1, index.size());
+        int row = index.indexOf(10);
+        assertEquals(1, index.getPathogenicity(row));
+        assertEquals(200, index.getPosition(row));
+        assertEquals("T", index.getAlternateAllele(row));
+    }
+
+    @Test
+    void sort_by_coordinate_keeps_the_rs_id_lookup() {
+        VariantIndex index = new VariantIndex();
+        add(index, 5, "X", 10, 1, "G");
+        add(index, 4, "2", 30, 1, "G");
+        add(index, 3, "2", 20, 1, "G");
+        add(index, 2, "Un", 5, 1, "G");
+        add(index, 1, "1", 40, 1, "G");
+        index.sort_by_coordinate();
+
+        assertTrue(index.isSortedByCoordinate());
+        long[] expected = {2, 1, 3, 4, 5};
+        for (int row = 0; row < expected.length; row++) {
+            assertEquals(expected[row], index.getRsId(row));
+            assertEquals(row, index.indexOf(expected[row]));
+        }
+        assertEquals(1, index.firstRow(Chromosome.UNKNOWN + 1));
+        assertEquals(2, index.firstRow(2));
+        assertEquals(4, index.firstRow(Chromosome.X));
+        assertEquals(5, index.firstRow(Chromosome.COUNT));
+    }
+
+    @Test
+    void sort_by_coordinate_orders_by_chromosome_position_and_rs_id() {
+        VariantIndex index = new VariantIndex();
+        Random random = new Random(5);
+        long[] rsIds = random.longs(5_000, 0, Long.MAX_VALUE).distinct().toArray();
+        String[] chromosomes = {"1", "2", "X", "MT", "Un"};
+        for (long rsId : rsIds) {
+            add(index, rsId, chromosomes[random.nextInt(chromosomes.length)], random.nextInt(200) - 20, 1, "G");
+        }
+        index.sort_by_coordinate();
+
+        Comparator<Integer> coordinate = Comparator.<Integer>comparingInt(index::getChromosomeCode)
+                .thenComparingInt(index::getPosition).thenComparingLong(index::getRsId);
+        int[] sorted = IntStream.range(0, index.size()).boxed().sorted(coordinate).mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(IntStream.range(0, index.size()).toArray(), sorted);
+        for (long rsId : rsIds) {
+            assertEquals(rsId, index.getRsId(index.indexOf(rsId)));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for VariantSnapshot.
+ */
+class VariantSnapshotTest {
+
+    @TempDir
+    File directory;
+
+    static VariantIndex sample_index() {
+        VariantIndex index = new VariantIndex();
+        for (long rsId = 1; rsId <= 3000; rsId++) {
+            VariantIndexTest.add(index, rsId * 7, rsId % 5 == 0 ? "X" : String.valueOf(1 + rsId % 22),
+                    (int) (rsId * 13 % 10_000), (int) (rsId % 3 == 0 ? 0 : 1), rsId % 2 == 0 ? "G" : "CT");
+        }
+        index.sort_by_coordinate();
+        return index;
+    }
+
+    @Test
+    void reads_back_the_written_index() throws IOException {
+        VariantIndex index = sample_index();
+        VariantSnapshot snapshot = new VariantSnapshot(directory, "abc", "GRCh37");
+        assertFalse(snapshot.exists());
+        snapshot.write_snapshot(index);
+        assertTrue(snapshot.exists());
+
+        VariantIndex read = snapshot.read_snapshot();
+        assertEquals(index.size(), read.size());
+        assertTrue(read.isSortedByCoordinate());
+        for (int row = 0; row < index.size(); row++) {
+            long rsId = index.getRsId(row);
+            assertEquals(row, read.indexOf(rsId));
+            assertEquals(index.getPosition(row), read.getPosition(row));
+            assertEquals(index.getPathogenicity(row), read.getPathogenicity(row));
+            assertEquals(index.getAlternateAllele(row), read.getAlternateAllele(row));
+            assertEquals(index.getDisease(row), read.getDisease(row));
+            assertEquals(index.getChromosomeCode(row), read.getChromosomeCode(row));
+        }
+        for (int code = 0; code <= Chromosome.COUNT; code++) {
+            assertEquals(index.firstRow(code), read.firstRow(code));
+        }
+    }
+
+    @Test
+    void rejects_a_truncated_snapshot() throws IOException {
+        VariantSnapshot snapshot = new VariantSnapshot(directory, "abc", "GRCh37");
+        snapshot.write_snapshot(sample_index());
+        byte[] bytes = Files.readAllBytes(snapshot.getFile().toPath());
+        for (int length : new int[]{0, 5, 12, 100, bytes.length / 2, bytes.length - 1}) {
+            Files.write(snapshot.getFile().toPath(), Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, snapshot::read_snapshot, "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void rejects_a_snapshot_with_invalid_sizes() throws IOException {
+        VariantSnapshot snapshot = new VariantSnapshot(directory, "abc", "GRCh37");
+        snapshot.write_snapshot(sample_index());
+        byte[] bytes = Files.readAllBytes(snapshot.getFile().toPath());
+        ByteBuffer.wrap(bytes).putInt(8, -1);
+        Files.write(snapshot.getFile().toPath(), bytes);
+        assertThrows(IOException.class, snapshot::read_snapshot);
+
+        ByteBuffer.wrap(bytes).putInt(8, 3000).putInt(12, 3000);
+        Files.write(snapshot.getFile().toPath(), bytes);
+        assertThrows(IOException.class, snapshot::read_snapshot);
+    }
+}